@@ -0,0 +1,57 @@
+package org.example.benchmark;
+
+import org.example.ApplicationContext;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A fully wired {@link ApplicationContext} over a freshly generated SQLite database,
+ * configured the same way as the deployed application apart from the database file.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    @Param({"50", "300"})
+    public int currencies;
+
+    @Param({"2000"})
+    public int rates;
+
+    /**
+     * Prepared statements cached per connection, run with {@code -p statementCacheSize=0,32} to compare.
+     */
+    @Param({"32"})
+    public int statementCacheSize;
+
+    public RateData data;
+    public ApplicationContext applicationContext;
+
+    private Path databaseFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        data = RateData.generate(currencies, rates);
+        databaseFile = Files.createTempFile("currency-exchange-benchmark", ".db");
+        Files.delete(databaseFile);
+        data.writeTo(databaseFile);
+
+        System.setProperty("database.url", "jdbc:sqlite:" + databaseFile);
+        System.setProperty("database.statement-cache-size", Integer.toString(statementCacheSize));
+        applicationContext = new ApplicationContext();
+        applicationContext.getRateGraphEngine().snapshot();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        applicationContext.close();
+        RateData.deleteDatabase(databaseFile);
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.benchmark;
+
+import org.example.dao.ExchangeRateDao;
+import org.example.entity.ExchangeRate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code JdbcExchangeRateDao.findByCodes} against SQLite, cycling through every stored pair.
+ * With {@code -p statementCacheSize=0,32} it shows what reusing the prepared statement saves per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExchangeRateDaoBenchmark {
+
+    private ExchangeRateDao exchangeRateDao;
+    private String[] baseCodes;
+    private String[] targetCodes;
+    private String missingBaseCode;
+    private String missingTargetCode;
+    private int next;
+
+    @Setup
+    public void setUp(ApplicationState state) {
+        exchangeRateDao = state.applicationContext.getExchangeRateDao();
+
+        RateData data = state.data;
+        baseCodes = new String[data.rateCount()];
+        targetCodes = new String[data.rateCount()];
+
+        for (int i = 0; i < data.rateCount(); i++) {
+            baseCodes[i] = data.baseCode(i);
+            targetCodes[i] = data.targetCode(i);
+        }
+
+        // only USD -> code(1) is stored
+        missingBaseCode = data.code(1);
+        missingTargetCode = data.code(0);
+    }
+
+    @Benchmark
+    public Optional<ExchangeRate> findByCodes() {
+        int i = next;
+        next = i + 1 == baseCodes.length ? 0 : i + 1;
+        return exchangeRateDao.findByCodes(baseCodes[i], targetCodes[i]);
+    }
+
+    @Benchmark
+    public Optional<ExchangeRate> findByCodesMissing() {
+        return exchangeRateDao.findByCodes(missingBaseCode, missingTargetCode);
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.benchmark;
+
+import org.example.dto.ExchangeRateRequestDto;
+import org.example.entity.ExchangeRate;
+import org.example.service.ExchangeRateService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ExchangeRateService.startImport} overwriting every stored rate in one transaction,
+ * the path behind {@code POST /exchangeRates/import}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExchangeRateImportBenchmark {
+
+    private ExchangeRateService exchangeRateService;
+    private ExchangeRateRequestDto[] requests;
+
+    @Setup
+    public void setUp(ApplicationState state) {
+        exchangeRateService = state.applicationContext.getExchangeRateService();
+
+        RateData data = state.data;
+        requests = new ExchangeRateRequestDto[data.rateCount()];
+
+        for (int i = 0; i < data.rateCount(); i++) {
+            requests[i] = new ExchangeRateRequestDto(data.baseCode(i), data.targetCode(i), data.rate(i));
+        }
+    }
+
+    @Benchmark
+    public List<ExchangeRate> importAll() {
+        ExchangeRateService.Import rateImport = exchangeRateService.startImport();
+
+        for (ExchangeRateRequestDto request : requests) {
+            rateImport.add(request);
+        }
+        return rateImport.commit();
+    }
+}
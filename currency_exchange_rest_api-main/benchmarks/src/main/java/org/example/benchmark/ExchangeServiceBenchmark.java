@@ -0,0 +1,62 @@
+package org.example.benchmark;
+
+import org.example.dto.ExchangeRequestDto;
+import org.example.dto.ExchangeResponseDto;
+import org.example.service.ExchangeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ExchangeService.exchange} for a stored rate, its inverse and a conversion through USD.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExchangeServiceBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("123.45");
+
+    private ExchangeService exchangeService;
+    private ExchangeRequestDto direct;
+    private ExchangeRequestDto inverse;
+    private ExchangeRequestDto cross;
+
+    @Setup
+    public void setUp(ApplicationState state) {
+        exchangeService = state.applicationContext.getExchangeService();
+
+        RateData data = state.data;
+        direct = new ExchangeRequestDto(data.code(0), data.code(1), AMOUNT);
+        inverse = new ExchangeRequestDto(data.code(1), data.code(0), AMOUNT);
+        cross = new ExchangeRequestDto(data.code(1), data.code(2), AMOUNT);
+    }
+
+    @Benchmark
+    public ExchangeResponseDto exchangeDirect() {
+        return exchangeService.exchange(direct);
+    }
+
+    @Benchmark
+    public ExchangeResponseDto exchangeInverse() {
+        return exchangeService.exchange(inverse);
+    }
+
+    @Benchmark
+    public ExchangeResponseDto exchangeCross() {
+        return exchangeService.exchange(cross);
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.benchmark;
+
+import org.example.log.Level;
+import org.example.log.Logger;
+import org.example.log.Logging;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a DEBUG call with three fields while the level is INFO, as in {@code POST /currencies}.
+ * Run with {@code -prof gc} to see that it allocates nothing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+
+    private static final Logger log = Logger.get(LoggingBenchmark.class);
+
+    private final String code = "USD";
+    private final String name = "US Dollar";
+    private final String sign = "$";
+
+    @Setup
+    public void setUp() {
+        Logging.configure(Level.INFO, 1024);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Logging.shutdown();
+    }
+
+    @Benchmark
+    public void disabled() {
+        log.debug("Creating currency", "code", code, "name", name, "sign", sign);
+    }
+}
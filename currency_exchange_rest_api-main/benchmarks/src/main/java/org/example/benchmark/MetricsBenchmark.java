@@ -0,0 +1,52 @@
+package org.example.benchmark;
+
+import org.example.metrics.Histogram;
+import org.example.metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording one latency in a {@link Histogram}, from a single thread and from four threads
+ * sharing the histogram, and of timing a call with two {@link System#nanoTime()} reads around it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    private final Histogram histogram = new MetricsRegistry()
+            .histogram("benchmark_seconds", "Benchmark latency.", "endpoint", "/benchmark");
+
+    private long value = 123_456;
+
+    @Benchmark
+    public void record() {
+        histogram.record(value);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        histogram.record(value);
+    }
+
+    @Benchmark
+    public void timeCall() {
+        long start = System.nanoTime();
+        value ^= 1;
+        histogram.record(System.nanoTime() - start);
+    }
+}
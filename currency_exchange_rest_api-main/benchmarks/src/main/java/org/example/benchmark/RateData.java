@@ -0,0 +1,220 @@
+package org.example.benchmark;
+
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.example.migration.SchemaMigrator;
+import org.example.utils.FixedPoint;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reproducible set of currencies and exchange rates for the benchmarks.
+ * <p>
+ * Currency 0 is USD and has a rate to every other currency, so every pair is convertible. Currencies 1 and 2
+ * have no other rates: {@code 0 -> 1} is a direct lookup, {@code 1 -> 0} an inverse one and {@code 1 -> 2}
+ * a cross conversion through USD. The remaining rates connect random pairs of the other currencies.
+ * ISO 4217 codes are used first, then made-up codes once those run out.
+ */
+public final class RateData {
+
+    private static final long SEED = 42;
+
+    private final List<String> codes;
+    private final List<int[]> pairs;
+    private final List<BigDecimal> rates;
+
+    private RateData(List<String> codes, List<int[]> pairs, List<BigDecimal> rates) {
+        this.codes = codes;
+        this.pairs = pairs;
+        this.rates = rates;
+    }
+
+    public static RateData generate(int currencyCount, int rateCount) {
+        if (currencyCount < 3) {
+            throw new IllegalArgumentException("At least 3 currencies are needed, got " + currencyCount);
+        }
+
+        List<String> codes = currencyCodes(currencyCount);
+        int maxRates = (currencyCount - 1) + (currencyCount - 3) * (currencyCount - 4);
+        int targetRates = Math.max(currencyCount - 1, Math.min(rateCount, maxRates));
+
+        Random random = new Random(SEED);
+        List<int[]> pairs = new ArrayList<>(targetRates);
+        List<BigDecimal> rates = new ArrayList<>(targetRates);
+        Set<Long> used = new HashSet<>();
+
+        for (int target = 1; target < currencyCount; target++) {
+            pairs.add(new int[]{0, target});
+        }
+
+        while (pairs.size() < targetRates) {
+            int base = 3 + random.nextInt(currencyCount - 3);
+            int target = 3 + random.nextInt(currencyCount - 3);
+
+            if (base != target && used.add((long) base * currencyCount + target)) {
+                pairs.add(new int[]{base, target});
+            }
+        }
+
+        for (int i = 0; i < pairs.size(); i++) {
+            rates.add(BigDecimal.valueOf(0.01 + random.nextDouble() * 100).setScale(6, RoundingMode.HALF_EVEN));
+        }
+
+        return new RateData(codes, pairs, rates);
+    }
+
+    private static List<String> currencyCodes(int count) {
+        Set<String> iso = new TreeSet<>();
+        java.util.Currency.getAvailableCurrencies().forEach(currency -> iso.add(currency.getCurrencyCode()));
+        iso.remove("USD");
+
+        List<String> codes = new ArrayList<>(count);
+        codes.add("USD");
+
+        for (String code : iso) {
+            if (codes.size() == count) {
+                return codes;
+            }
+            codes.add(code);
+        }
+
+        for (char a = 'A'; a <= 'Z'; a++) {
+            for (char b = 'A'; b <= 'Z'; b++) {
+                for (char c = 'A'; c <= 'Z'; c++) {
+                    if (codes.size() == count) {
+                        return codes;
+                    }
+
+                    String code = new String(new char[]{a, b, c});
+                    if (!iso.contains(code) && !code.equals("USD")) {
+                        codes.add(code);
+                    }
+                }
+            }
+        }
+
+        throw new IllegalArgumentException("Cannot generate " + count + " distinct currency codes");
+    }
+
+    public int currencyCount() {
+        return codes.size();
+    }
+
+    public int rateCount() {
+        return pairs.size();
+    }
+
+    public String code(int index) {
+        return codes.get(index);
+    }
+
+    public String baseCode(int rate) {
+        return codes.get(pairs.get(rate)[0]);
+    }
+
+    public String targetCode(int rate) {
+        return codes.get(pairs.get(rate)[1]);
+    }
+
+    public BigDecimal rate(int rate) {
+        return rates.get(rate);
+    }
+
+    /**
+     * Currencies with ids {@code 1..n} in the order they are inserted into the database.
+     */
+    public List<Currency> currencies() {
+        List<Currency> currencies = new ArrayList<>(codes.size());
+
+        for (int i = 0; i < codes.size(); i++) {
+            currencies.add(new Currency((long) i + 1, codes.get(i), "Currency " + codes.get(i), "¤"));
+        }
+        return currencies;
+    }
+
+    public List<ExchangeRate> exchangeRates(List<Currency> currencies) {
+        List<ExchangeRate> exchangeRates = new ArrayList<>(pairs.size());
+
+        for (int i = 0; i < pairs.size(); i++) {
+            int[] pair = pairs.get(i);
+            exchangeRates.add(new ExchangeRate(
+                    (long) i + 1, currencies.get(pair[0]), currencies.get(pair[1]), rates.get(i)
+            ));
+        }
+        return exchangeRates;
+    }
+
+    /**
+     * Creates a new SQLite database file with the application schema, without its sample data, and this data.
+     */
+    public void writeTo(Path file) {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file)) {
+            new SchemaMigrator(false).migrate(connection);
+
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO Currencies (id, code, full_name, sign) VALUES (?, ?, ?, ?)")) {
+                for (Currency currency : currencies()) {
+                    statement.setLong(1, currency.getId());
+                    statement.setString(2, currency.getCode());
+                    statement.setString(3, currency.getFullName());
+                    statement.setString(4, currency.getSign());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+
+            // pair_key is filled in by the trigger of the pair key migration
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO Exchange_rates (base_currency_id, target_currency_id, rate_unscaled, rate_scale) "
+                            + "VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < pairs.size(); i++) {
+                    BigDecimal rate = FixedPoint.normalize(rates.get(i));
+
+                    statement.setLong(1, pairs.get(i)[0] + 1);
+                    statement.setLong(2, pairs.get(i)[1] + 1);
+                    statement.setLong(3, FixedPoint.unscaled(rate));
+                    statement.setInt(4, rate.scale());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                // as in the history migration, the existing rates are valid from the epoch
+                statement.executeUpdate("""
+                        INSERT INTO Exchange_rate_history
+                            (base_currency_id, target_currency_id, rate_unscaled, rate_scale, valid_from)
+                        SELECT base_currency_id, target_currency_id, rate_unscaled, rate_scale, 0
+                        FROM Exchange_rates
+                        """);
+            }
+
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create benchmark database " + file, e);
+        }
+    }
+
+    static void deleteDatabase(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+    }
+}
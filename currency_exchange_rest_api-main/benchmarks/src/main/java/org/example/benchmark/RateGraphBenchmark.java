@@ -0,0 +1,95 @@
+package org.example.benchmark;
+
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.example.graph.Conversion;
+import org.example.graph.RateGraph;
+import org.example.graph.RateSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How the in-memory {@link RateGraph} scales with the number of currencies: cross-rate lookup,
+ * a full rebuild, the incremental update done after every rate change and the {@link RateSnapshot} round trip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateGraphBenchmark {
+
+    @Param({"10", "50", "150", "300"})
+    public int currencies;
+
+    @Param({"4"})
+    public int ratesPerCurrency;
+
+    private List<Currency> currencyList;
+    private List<ExchangeRate> exchangeRates;
+    private RateGraph graph;
+    private String crossBase;
+    private String crossTarget;
+    private ExchangeRate changedRate;
+    private byte[] snapshot;
+
+    @Setup
+    public void setUp() {
+        RateData data = RateData.generate(currencies, currencies * ratesPerCurrency);
+
+        currencyList = data.currencies();
+        exchangeRates = data.exchangeRates(currencyList);
+        graph = RateGraph.build(currencyList, exchangeRates);
+
+        crossBase = data.code(1);
+        crossTarget = data.code(2);
+
+        ExchangeRate last = exchangeRates.get(exchangeRates.size() - 1);
+        changedRate = new ExchangeRate(
+                last.getId(), last.getBaseCurrency(), last.getTargetCurrency(), last.getRate().add(BigDecimal.ONE)
+        );
+
+        snapshot = RateSnapshot.toByteArray(graph);
+    }
+
+    @Benchmark
+    public Optional<Conversion> findCrossConversion() {
+        return graph.findConversion(crossBase, crossTarget);
+    }
+
+    @Benchmark
+    public RateGraph build() {
+        return RateGraph.build(currencyList, exchangeRates);
+    }
+
+    @Benchmark
+    public RateGraph withRate() {
+        return graph.withRate(changedRate);
+    }
+
+    @Benchmark
+    public byte[] encodeSnapshot() {
+        return RateSnapshot.toByteArray(graph);
+    }
+
+    @Benchmark
+    public RateSnapshot decodeSnapshot() {
+        return RateSnapshot.decode(ByteBuffer.wrap(snapshot));
+    }
+}
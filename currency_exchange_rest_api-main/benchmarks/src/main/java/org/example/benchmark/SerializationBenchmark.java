@@ -0,0 +1,65 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.ApplicationContext;
+import org.example.dto.ExchangeRateResponseDto;
+import org.example.entity.ExchangeRate;
+import org.example.utils.MappingUtils;
+import org.example.utils.StreamingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of {@link ExchangeRateResponseDto} lists with the application's {@link ObjectMapper},
+ * both as one value and streamed element by element the way {@code GET /exchangeRates} writes them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<ExchangeRateResponseDto> exchangeRates;
+
+    @Setup
+    public void setUp() {
+        objectMapper = ApplicationContext.createObjectMapper();
+
+        RateData data = RateData.generate(Math.max(3, size / 4), size);
+        exchangeRates = data.exchangeRates(data.currencies()).stream()
+                .limit(size)
+                .map(MappingUtils::convertToDto)
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(exchangeRates);
+    }
+
+    @Benchmark
+    public void writeJsonArray() throws IOException {
+        StreamingUtils.writeJsonArray(objectMapper, Writer.nullWriter(),
+                exchangeRates::forEach);
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.benchmark;
+
+import org.example.exception.InvalidParameterException;
+import org.example.utils.ValidationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ValidationUtils.validateCurrencyCode} for a canonical code, one that needs trimming and upper-casing,
+ * and an unknown code that is rejected.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    public String valid = "USD";
+    public String untrimmed = " eur ";
+    public String unknown = "XYZ";
+
+    @Benchmark
+    public String validateValid() {
+        return ValidationUtils.validateCurrencyCode(valid);
+    }
+
+    @Benchmark
+    public String validateUntrimmed() {
+        return ValidationUtils.validateCurrencyCode(untrimmed);
+    }
+
+    @Benchmark
+    public Object validateUnknown() {
+        try {
+            return ValidationUtils.validateCurrencyCode(unknown);
+        } catch (InvalidParameterException e) {
+            return e;
+        }
+    }
+}
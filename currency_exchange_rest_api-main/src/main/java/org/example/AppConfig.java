@@ -0,0 +1,111 @@
+package org.example;
+
+import org.example.exception.ConfigurationException;
+import org.example.log.Level;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Application settings that are not about the database: defaults from {@code application.properties} on the
+ * classpath, overridden by an external file, environment variables and system properties (see that file).
+ */
+public class AppConfig extends Config {
+
+    private static final String DEFAULTS_RESOURCE = "/application.properties";
+    private static final String CONFIG_FILE_PROPERTY = "app.config";
+    private static final String CONFIG_FILE_ENV = "APP_CONFIG";
+    private static final List<String> PREFIXES = List.of("http.", "log.", "trace.", "snapshot.");
+
+    public AppConfig(Properties properties) {
+        super(properties);
+    }
+
+    public static AppConfig load() {
+        return new AppConfig(load(DEFAULTS_RESOURCE, CONFIG_FILE_PROPERTY, CONFIG_FILE_ENV,
+                key -> PREFIXES.stream().anyMatch(key::startsWith)));
+    }
+
+    public boolean isAsyncRequests() {
+        return getBoolean("http.async-requests", false);
+    }
+
+    /**
+     * Requests running at once in async mode, {@code defaultPermits} when not set.
+     */
+    public int getRequestPermits(int defaultPermits) {
+        return getInt("http.request-permits", defaultPermits);
+    }
+
+    /**
+     * Budget of the {@link ResponseCache} in bytes, zero disables it.
+     */
+    public int getResponseCacheMaxBytes() {
+        return getInt("http.response-cache-max-bytes", 4 * 1024 * 1024);
+    }
+
+    /**
+     * Lowest level written by the application's loggers.
+     */
+    public Level getLogLevel() {
+        String value = get("log.level", "INFO");
+
+        try {
+            return Level.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Configuration value 'log.level' must be one of TRACE, DEBUG, "
+                    + "INFO, WARN, ERROR or OFF, got '" + value + "'");
+        }
+    }
+
+    /**
+     * Log events buffered for the writer thread before further events are dropped.
+     */
+    public int getLogBufferSize() {
+        return getInt("log.buffer-size", 8192);
+    }
+
+    /**
+     * Whether connections are wrapped by a {@link org.example.trace.QueryTracer}.
+     */
+    public boolean isQueryTracing() {
+        return getBoolean("trace.enabled", true);
+    }
+
+    /**
+     * Statement executions taking at least this long, connection wait included, are kept as slow queries.
+     */
+    public int getSlowQueryThresholdMs() {
+        return getInt("trace.slow-query-threshold-ms", 100);
+    }
+
+    /**
+     * Number of most recent slow queries kept.
+     */
+    public int getSlowQueryLogSize() {
+        return getInt("trace.slow-query-log-size", 100);
+    }
+
+    /**
+     * Whether slow queries are kept with their bound parameter values.
+     */
+    public boolean isSlowQueryParameters() {
+        return getBoolean("trace.slow-query-parameters", false);
+    }
+
+    /**
+     * Whether GET /admin/slowQueries lists the slow queries, it answers 404 otherwise.
+     */
+    public boolean isSlowQueryEndpoint() {
+        return getBoolean("trace.slow-query-endpoint", false);
+    }
+
+    /**
+     * File of the binary rate snapshot loaded at startup and written at shutdown, or {@code null} when disabled.
+     */
+    public Path getSnapshotPath() {
+        String value = properties.getProperty("snapshot.path");
+        return value == null || value.isBlank() ? null : Path.of(value.trim());
+    }
+}
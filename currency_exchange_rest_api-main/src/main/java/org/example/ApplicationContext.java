@@ -0,0 +1,253 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.ServletContext;
+import org.example.dao.CachingCurrencyDao;
+import org.example.dao.CurrencyDao;
+import org.example.dao.ExchangeRateDao;
+import org.example.dao.JdbcCurrencyDao;
+import org.example.dao.JdbcExchangeRateDao;
+import org.example.dao.TimedCurrencyDao;
+import org.example.dao.TimedExchangeRateDao;
+import org.example.graph.RateGraphEngine;
+import org.example.graph.RateSnapshot;
+import org.example.exception.DatabaseOperationException;
+import org.example.log.Logger;
+import org.example.log.Logging;
+import org.example.metrics.HikariMetrics;
+import org.example.metrics.MetricsRegistry;
+import org.example.migration.SchemaMigrator;
+import org.example.service.ExchangeRateService;
+import org.example.service.ExchangeService;
+import org.example.trace.QueryTracer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The single set of connection pools, database writer, DAOs, services and {@link ObjectMapper} shared by all servlets and filters.
+ * Created and closed by {@link ApplicationContextListener}.
+ */
+public class ApplicationContext implements AutoCloseable {
+
+    private static final String ATTRIBUTE = ApplicationContext.class.getName();
+    private static final Logger log = Logger.get(ApplicationContext.class);
+
+    private final MetricsRegistry metricsRegistry;
+    private final QueryTracer queryTracer;
+    private final boolean slowQueryEndpoint;
+    private final DatabaseConnectionManager connectionManager;
+    private final DataVersion dataVersion;
+    private final ResponseCache responseCache;
+    private final RateChangeBroadcaster rateChangeBroadcaster;
+    private final RequestExecutor requestExecutor;
+    private final DatabaseWriter databaseWriter;
+    private final CachingCurrencyDao currencyDao;
+    private final ExchangeRateDao exchangeRateDao;
+    private final RateGraphEngine rateGraphEngine;
+    private final ExchangeRateService exchangeRateService;
+    private final ExchangeService exchangeService;
+    private final ObjectMapper objectMapper;
+    private final Path snapshotPath;
+
+    public ApplicationContext() {
+        DatabaseConfig config = DatabaseConfig.load();
+        AppConfig appConfig = AppConfig.load();
+        Logging.configure(appConfig.getLogLevel(), appConfig.getLogBufferSize());
+
+        objectMapper = createObjectMapper();
+        metricsRegistry = new MetricsRegistry();
+        queryTracer = appConfig.isQueryTracing()
+                ? new QueryTracer(appConfig.getSlowQueryThresholdMs(), appConfig.getSlowQueryLogSize(),
+                        appConfig.isSlowQueryParameters(), config.getBusyTimeoutMs(), metricsRegistry)
+                : null;
+        slowQueryEndpoint = appConfig.isSlowQueryEndpoint();
+        connectionManager = new DatabaseConnectionManager(config, new HikariMetrics(metricsRegistry), queryTracer);
+        migrateSchema(config.isSampleData());
+        dataVersion = new DataVersion();
+        databaseWriter = new DatabaseWriter(connectionManager, config.getWriteBatchSize(), dataVersion);
+        responseCache = new ResponseCache(appConfig.getResponseCacheMaxBytes(), dataVersion);
+        rateChangeBroadcaster = new RateChangeBroadcaster(objectMapper);
+        requestExecutor = new RequestExecutor(
+                appConfig.isAsyncRequests(),
+                // one per pooled connection by default
+                appConfig.getRequestPermits(config.getReadPoolSize() + config.getWritePoolSize()),
+                config.getConnectionTimeoutMs(), objectMapper
+        );
+        currencyDao = new CachingCurrencyDao(
+                new TimedCurrencyDao(new JdbcCurrencyDao(connectionManager, databaseWriter), metricsRegistry), responseCache
+        );
+        exchangeRateDao = new TimedExchangeRateDao(new JdbcExchangeRateDao(connectionManager, databaseWriter), metricsRegistry);
+        rateGraphEngine = new RateGraphEngine(currencyDao, exchangeRateDao);
+        exchangeRateService = new ExchangeRateService(
+                currencyDao, exchangeRateDao, rateGraphEngine, responseCache, rateChangeBroadcaster
+        );
+        exchangeService = new ExchangeService(rateGraphEngine);
+        snapshotPath = appConfig.getSnapshotPath();
+
+        registerMetrics();
+
+        if (snapshotPath != null && Files.exists(snapshotPath)) {
+            try {
+                rateGraphEngine.warmStart(RateSnapshot.read(snapshotPath).toGraph());
+            } catch (IOException | IllegalArgumentException e) {
+                // the graph is loaded from the database on first use instead
+                log.warn("Ignoring rate snapshot", "path", snapshotPath, e);
+            }
+        }
+    }
+
+    public static ApplicationContext get(ServletContext servletContext) {
+        return (ApplicationContext) servletContext.getAttribute(ATTRIBUTE);
+    }
+
+    void register(ServletContext servletContext) {
+        servletContext.setAttribute(ATTRIBUTE, this);
+    }
+
+    void unregister(ServletContext servletContext) {
+        servletContext.removeAttribute(ATTRIBUTE);
+    }
+
+    public static ObjectMapper createObjectMapper() {
+        return new ObjectMapper()
+                // servlets write whole documents or close their generators, an extra flush per value only costs
+                .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    // before anything reads the tables, the pools are closed again if the schema cannot be brought up to date
+    private void migrateSchema(boolean sampleData) {
+        try (Connection connection = connectionManager.getWriteConnection()) {
+            new SchemaMigrator(sampleData).migrate(connection);
+        } catch (SQLException e) {
+            connectionManager.close();
+            throw new DatabaseOperationException("Failed to open the database for migration", e);
+        } catch (RuntimeException e) {
+            connectionManager.close();
+            throw e;
+        }
+    }
+
+    private void registerMetrics() {
+        metricsRegistry.gauge("response_cache_bytes", "Estimated memory used by the response cache.",
+                responseCache::getBytes);
+        metricsRegistry.gauge("response_cache_max_bytes", "Memory budget of the response cache.",
+                responseCache::getMaxBytes);
+        metricsRegistry.gauge("response_cache_entries", "Responses held by the response cache.",
+                responseCache::getEntryCount);
+        metricsRegistry.counter("response_cache_hits_total", "Responses served from the response cache.",
+                responseCache::getHits);
+        metricsRegistry.counter("response_cache_misses_total", "Responses not found in the response cache.",
+                responseCache::getMisses);
+        metricsRegistry.counter("response_cache_evictions_total", "Responses evicted to stay within the memory budget.",
+                responseCache::getEvictions);
+        metricsRegistry.counter("currency_cache_hits_total", "Currency lookups answered from the currency cache.",
+                currencyDao::getHits);
+        metricsRegistry.counter("currency_cache_misses_total", "Currency lookups that queried the database.",
+                currencyDao::getMisses);
+        StatementCache statementCache = connectionManager.getStatementCache();
+        if (statementCache != null) {
+            metricsRegistry.counter("statement_cache_hits_total", "Statements reused from the prepared statement cache.",
+                    statementCache::getHits);
+            metricsRegistry.counter("statement_cache_misses_total", "Statements prepared because none was cached.",
+                    statementCache::getMisses);
+        }
+        metricsRegistry.gauge("rate_stream_subscribers", "Open /exchangeRates/stream connections.",
+                rateChangeBroadcaster::getSubscriberCount);
+        metricsRegistry.gauge("request_executor_permits_available", "Free permits of the asynchronous request executor.",
+                requestExecutor::getAvailablePermits);
+        metricsRegistry.gauge("request_executor_waiting", "Asynchronous requests waiting for a permit.",
+                requestExecutor::getQueueLength);
+        metricsRegistry.counter("log_events_dropped_total", "Log events dropped because the log buffer was full.",
+                Logging::getDropped);
+        metricsRegistry.gauge("data_version", "Number of committed writes since startup.",
+                () -> dataVersion.current().version());
+    }
+
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    /**
+     * The tracer of database connections, {@code null} when query tracing is disabled.
+     */
+    public QueryTracer getQueryTracer() {
+        return queryTracer;
+    }
+
+    /**
+     * Whether the slow queries may be listed at GET /admin/slowQueries.
+     */
+    public boolean isSlowQueryEndpoint() {
+        return slowQueryEndpoint;
+    }
+
+    public DataVersion getDataVersion() {
+        return dataVersion;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public RateChangeBroadcaster getRateChangeBroadcaster() {
+        return rateChangeBroadcaster;
+    }
+
+    public RequestExecutor getRequestExecutor() {
+        return requestExecutor;
+    }
+
+    public CurrencyDao getCurrencyDao() {
+        return currencyDao;
+    }
+
+    public CachingCurrencyDao getCachingCurrencyDao() {
+        return currencyDao;
+    }
+
+    public ExchangeRateDao getExchangeRateDao() {
+        return exchangeRateDao;
+    }
+
+    public RateGraphEngine getRateGraphEngine() {
+        return rateGraphEngine;
+    }
+
+    public ExchangeRateService getExchangeRateService() {
+        return exchangeRateService;
+    }
+
+    public ExchangeService getExchangeService() {
+        return exchangeService;
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    @Override
+    public void close() {
+        rateChangeBroadcaster.close();
+        requestExecutor.close();
+
+        if (snapshotPath != null) {
+            try {
+                RateSnapshot.write(rateGraphEngine.snapshot(), snapshotPath);
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to write rate snapshot", "path", snapshotPath, e);
+            }
+        }
+
+        rateGraphEngine.shutdown();
+        databaseWriter.close();
+        connectionManager.close();
+        Logging.shutdown();
+    }
+}
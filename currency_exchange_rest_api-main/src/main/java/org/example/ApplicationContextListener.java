@@ -0,0 +1,29 @@
+package org.example;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+@WebListener
+public class ApplicationContextListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        ApplicationContext applicationContext = new ApplicationContext();
+
+        // load the rate graph now instead of on the first /exchange request
+        applicationContext.getRateGraphEngine().snapshot();
+
+        applicationContext.register(sce.getServletContext());
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        ApplicationContext applicationContext = ApplicationContext.get(sce.getServletContext());
+
+        if (applicationContext != null) {
+            applicationContext.unregister(sce.getServletContext());
+            applicationContext.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.example;
+
+import org.example.exception.ConfigurationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.function.Predicate;
+
+/**
+ * Settings with defaults from a properties file on the classpath, overridden from lowest to highest priority by
+ * an external file, environment variables named after the keys and system properties with the keys' names.
+ */
+public abstract class Config {
+
+    protected final Properties properties;
+
+    protected Config(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @param configFileProperty system property naming the external file, also excluded from the overrides
+     * @param configFileEnv      environment variable naming the external file
+     * @param isKey              which system properties are settings of this config
+     */
+    protected static Properties load(String defaultsResource, String configFileProperty, String configFileEnv,
+                                     Predicate<String> isKey) {
+        Properties properties = new Properties();
+
+        try (InputStream defaults = Config.class.getResourceAsStream(defaultsResource)) {
+            if (defaults != null) {
+                properties.load(defaults);
+            }
+        } catch (IOException e) {
+            throw new ConfigurationException("Failed to read " + defaultsResource, e);
+        }
+
+        String configFile = System.getProperty(configFileProperty, System.getenv(configFileEnv));
+
+        if (configFile != null && !configFile.isBlank()) {
+            try (Reader reader = Files.newBufferedReader(Path.of(configFile), StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                throw new ConfigurationException("Failed to read configuration '" + configFile + "'", e);
+            }
+        }
+
+        for (String key : properties.stringPropertyNames()) {
+            String environmentValue = System.getenv(toEnvironmentName(key));
+            if (environmentValue != null) {
+                properties.setProperty(key, environmentValue);
+            }
+        }
+
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (isKey.test(key) && !key.equals(configFileProperty)) {
+                properties.setProperty(key, System.getProperty(key));
+            }
+        }
+
+        return properties;
+    }
+
+    public String get(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue).trim();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException("Configuration value '" + key + "' must be an integer, got '" + value + "'");
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    private static String toEnvironmentName(String key) {
+        return key.toUpperCase().replace('.', '_').replace('-', '_');
+    }
+}
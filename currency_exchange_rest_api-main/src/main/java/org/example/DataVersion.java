@@ -0,0 +1,42 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Version of the stored data, bumped by {@link DatabaseWriter} after every commit that changed something.
+ * Responses derived from the data are tagged with it, so a client that already has the current version can be
+ * answered without touching the database. The tag includes the start time of this process because the counter
+ * restarts with it.
+ * <p>
+ * {@code Last-Modified} only has second precision, so {@code lastModified} is always a whole second and every bump
+ * moves it at least one second forward. A change made in the same second as an earlier response is then never
+ * mistaken for that response's version by {@code If-Modified-Since}; under many writes per second it runs ahead of
+ * the clock for a while.
+ */
+public class DataVersion {
+
+    public record Stamp(long version, long lastModified) {}
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicReference<Stamp> current =
+            new AtomicReference<>(new Stamp(0, nextSecond(System.currentTimeMillis())));
+
+    public Stamp current() {
+        return current.get();
+    }
+
+    void bump() {
+        long now = System.currentTimeMillis();
+        current.updateAndGet(stamp ->
+                new Stamp(stamp.version() + 1, Math.max(nextSecond(now), stamp.lastModified() + 1000)));
+    }
+
+    // rounds up to a whole second
+    private static long nextSecond(long millis) {
+        return Math.ceilDiv(millis, 1000) * 1000;
+    }
+
+    public String etag(Stamp stamp) {
+        return "\"" + epoch + "-" + stamp.version() + "\"";
+    }
+}
@@ -0,0 +1,82 @@
+package org.example;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Database settings: defaults from {@code database.properties} on the classpath,
+ * overridden by an external file, environment variables and system properties (see that file).
+ */
+public class DatabaseConfig extends Config {
+
+    private static final String DEFAULTS_RESOURCE = "/database.properties";
+    private static final String CONFIG_FILE_PROPERTY = "database.config";
+    private static final String CONFIG_FILE_ENV = "DATABASE_CONFIG";
+    private static final String PRAGMA_PREFIX = "database.pragma.";
+
+    public DatabaseConfig(Properties properties) {
+        super(properties);
+    }
+
+    public static DatabaseConfig load() {
+        return new DatabaseConfig(load(DEFAULTS_RESOURCE, CONFIG_FILE_PROPERTY, CONFIG_FILE_ENV,
+                key -> key.startsWith("database.")));
+    }
+
+    public String getUrl() {
+        return properties.getProperty("database.url", "jdbc:sqlite::resource:database.db");
+    }
+
+    public int getReadPoolSize() {
+        return getInt("database.read-pool-size", 8);
+    }
+
+    public int getWritePoolSize() {
+        return getInt("database.write-pool-size", 1);
+    }
+
+    public long getConnectionTimeoutMs() {
+        return getInt("database.connection-timeout-ms", 5000);
+    }
+
+    public int getWriteBatchSize() {
+        return getInt("database.write-batch-size", 256);
+    }
+
+    /**
+     * Whether a new database is filled with the sample currencies and exchange rates.
+     */
+    public boolean isSampleData() {
+        return Boolean.parseBoolean(get("database.sample-data", "true"));
+    }
+
+    /**
+     * Prepared statements kept open per pooled connection by the {@link StatementCache}, zero disables it.
+     */
+    public int getStatementCacheSize() {
+        return getInt("database.statement-cache-size", 32);
+    }
+
+    /**
+     * The {@code busy_timeout} pragma, or sqlite-jdbc's default of 3 seconds when it is not set.
+     */
+    public int getBusyTimeoutMs() {
+        return getInt(PRAGMA_PREFIX + "busy_timeout", 3000);
+    }
+
+    /**
+     * Pragmas by name, e.g. {@code journal_mode -> WAL}, in the format sqlite-jdbc accepts as connection properties.
+     */
+    public Map<String, String> getPragmas() {
+        Map<String, String> pragmas = new LinkedHashMap<>();
+
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(PRAGMA_PREFIX)) {
+                pragmas.put(key.substring(PRAGMA_PREFIX.length()), properties.getProperty(key).trim());
+            }
+        }
+        return pragmas;
+    }
+}
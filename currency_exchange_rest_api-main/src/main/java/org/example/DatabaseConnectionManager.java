@@ -2,23 +2,123 @@ package org.example;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import org.example.trace.QueryTracer;
+
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Two pools over the same SQLite database: a read-only pool sized for concurrent readers
+ * and a write pool, one connection by default, because SQLite serializes writers anyway.
+ */
+public class DatabaseConnectionManager implements AutoCloseable {
+
+    private final HikariDataSource readDataSource;
+    private final HikariDataSource writeDataSource;
+    private final StatementCache statementCache;
+    private final QueryTracer queryTracer;
+
+    public DatabaseConnectionManager() {
+        this(DatabaseConfig.load());
+    }
+
+    public DatabaseConnectionManager(DatabaseConfig config) {
+        this(config, null);
+    }
+
+    /**
+     * @param metricsTrackerFactory receives the pool metrics, may be {@code null}
+     */
+    public DatabaseConnectionManager(DatabaseConfig config, MetricsTrackerFactory metricsTrackerFactory) {
+        this(config, metricsTrackerFactory, null);
+    }
 
-public class DatabaseConnectionManager {
+    /**
+     * @param metricsTrackerFactory receives the pool metrics, may be {@code null}
+     * @param queryTracer traces the connections handed out, may be {@code null}
+     */
+    public DatabaseConnectionManager(DatabaseConfig config, MetricsTrackerFactory metricsTrackerFactory,
+                                     QueryTracer queryTracer) {
+        this.statementCache = config.getStatementCacheSize() > 0 ? new StatementCache(config.getStatementCacheSize()) : null;
+        this.queryTracer = queryTracer;
 
-    private static final HikariDataSource HIKARI_DATA_SOURCE;
+        // the writer opens the database first so WAL mode is in place before readers connect
+        writeDataSource = new HikariDataSource(
+                createHikariConfig(config, metricsTrackerFactory, "sqlite-write", config.getWritePoolSize(), false)
+        );
+        readDataSource = new HikariDataSource(
+                createHikariConfig(config, metricsTrackerFactory, "sqlite-read", config.getReadPoolSize(), true)
+        );
+    }
 
-    static {
+    private static HikariConfig createHikariConfig(DatabaseConfig config, MetricsTrackerFactory metricsTrackerFactory,
+                                                   String poolName, int poolSize, boolean readOnly) {
         HikariConfig hikariConfig = new HikariConfig();
 
-        hikariConfig.setJdbcUrl("jdbc:sqlite::resource:database.db");
+        if (metricsTrackerFactory != null) {
+            hikariConfig.setMetricsTrackerFactory(metricsTrackerFactory);
+        }
+
+        hikariConfig.setPoolName(poolName);
+        hikariConfig.setJdbcUrl(config.getUrl());
         hikariConfig.setDriverClassName("org.sqlite.JDBC");
+        hikariConfig.setMaximumPoolSize(poolSize);
+        hikariConfig.setMinimumIdle(poolSize);
+        hikariConfig.setConnectionTimeout(config.getConnectionTimeoutMs());
+
+        for (Map.Entry<String, String> pragma : config.getPragmas().entrySet()) {
+            hikariConfig.addDataSourceProperty(pragma.getKey(), pragma.getValue());
+        }
+
+        if (readOnly) {
+            // a write through the read pool fails instead of silently competing for the write lock
+            hikariConfig.setConnectionInitSql("PRAGMA query_only = true");
+        } else {
+            // take the write lock when the transaction starts instead of failing on lock upgrade
+            hikariConfig.addDataSourceProperty("transaction_mode", "IMMEDIATE");
+        }
+
+        return hikariConfig;
+    }
+
+    public Connection getReadConnection() throws SQLException {
+        return getConnection(readDataSource);
+    }
+
+    public Connection getWriteConnection() throws SQLException {
+        return getConnection(writeDataSource);
+    }
+
+    /**
+     * The cache of prepared statements, {@code null} when disabled.
+     */
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    private Connection getConnection(HikariDataSource dataSource) throws SQLException {
+        if (statementCache == null && queryTracer == null) {
+            return dataSource.getConnection();
+        }
+
+        long start = System.nanoTime();
+        Connection pooled = dataSource.getConnection();
+        long waitNanos = System.nanoTime() - start;
 
-        HIKARI_DATA_SOURCE = new HikariDataSource(hikariConfig);
+        try {
+            Connection connection = statementCache != null ? statementCache.wrap(pooled) : pooled;
+            return queryTracer != null ? queryTracer.trace(connection, dataSource.getPoolName(), waitNanos) : connection;
+        } catch (SQLException | RuntimeException e) {
+            pooled.close();
+            throw e;
+        }
     }
 
-    public static Connection getConnection() throws SQLException {
-        return HIKARI_DATA_SOURCE.getConnection();
+    @Override
+    public void close() {
+        readDataSource.close();
+        writeDataSource.close();
     }
 }
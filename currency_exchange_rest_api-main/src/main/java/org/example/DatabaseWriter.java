@@ -0,0 +1,179 @@
+package org.example;
+
+import org.example.exception.DatabaseOperationException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Runs every database mutation on one writer thread.
+ * <p>
+ * The thread takes whatever tasks have queued up, up to {@code maxBatchSize}, and runs them in a single transaction
+ * (group commit), so a burst of writes costs one commit instead of one per write. Each task runs inside its own
+ * savepoint: a failing task is rolled back alone and only its caller sees the error. Callers are completed
+ * once the whole batch has committed and the {@link DataVersion} has been bumped.
+ * <p>
+ * Anything a task throws, errors included, fails only that batch; should the thread stop anyway, every waiting
+ * caller is failed instead of blocking forever.
+ */
+public class DatabaseWriter implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface Task<T> {
+        T execute(Connection connection) throws SQLException;
+    }
+
+    private record PendingTask<T>(Task<T> task, CompletableFuture<T> future) {
+
+        @SuppressWarnings("unchecked")
+        void complete(Object result) {
+            future.complete((T) result);
+        }
+    }
+
+    private final DatabaseConnectionManager connectionManager;
+    private final int maxBatchSize;
+    private final DataVersion dataVersion;
+    private final BlockingQueue<PendingTask<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    public DatabaseWriter(DatabaseConnectionManager connectionManager, int maxBatchSize, DataVersion dataVersion) {
+        this.connectionManager = connectionManager;
+        this.maxBatchSize = maxBatchSize;
+        this.dataVersion = dataVersion;
+
+        thread = new Thread(this::run, "sqlite-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues the task and waits until the batch it ended up in has committed.
+     */
+    public <T> T execute(Task<T> task) {
+        try {
+            return submit(task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new DatabaseOperationException("Database write failed", e.getCause());
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Task<T> task) {
+        if (!running) {
+            throw new DatabaseOperationException("Database writer is closed");
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        queue.add(new PendingTask<>(task, future));
+        return future;
+    }
+
+    private void run() {
+        List<PendingTask<?>> batch = new ArrayList<>(maxBatchSize);
+
+        try {
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+
+                queue.drainTo(batch, maxBatchSize - 1);
+                writeBatch(batch);
+                batch.clear();
+            }
+        } finally {
+            running = false;
+            batch.forEach(pending -> pending.future().completeExceptionally(
+                    new DatabaseOperationException("Database writer is closed")
+            ));
+            failPending();
+        }
+    }
+
+    private void failPending() {
+        List<PendingTask<?>> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(task -> task.future().completeExceptionally(
+                new DatabaseOperationException("Database writer is closed")
+        ));
+    }
+
+    private void writeBatch(List<PendingTask<?>> batch) {
+        Object[] results = new Object[batch.size()];
+        Throwable[] failures = new Throwable[batch.size()];
+        boolean changed = false;
+
+        try (Connection connection = connectionManager.getWriteConnection()) {
+            connection.setAutoCommit(false);
+
+            try {
+                for (int i = 0; i < batch.size(); i++) {
+                    Savepoint savepoint = connection.setSavepoint();
+
+                    try {
+                        results[i] = batch.get(i).task().execute(connection);
+                        connection.releaseSavepoint(savepoint);
+                        changed = true;
+                    } catch (Throwable e) {
+                        connection.rollback(savepoint);
+                        failures[i] = e instanceof SQLException
+                                ? new DatabaseOperationException("Database write failed", e)
+                                : e;
+                    }
+                }
+
+                connection.commit();
+            } catch (Throwable e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (Throwable e) {
+            DatabaseOperationException failure = new DatabaseOperationException("Failed to commit database writes", e);
+            batch.forEach(pending -> pending.future().completeExceptionally(failure));
+            return;
+        }
+
+        if (changed) {
+            dataVersion.bump();
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (failures[i] != null) {
+                batch.get(i).future().completeExceptionally(failures[i]);
+            } else {
+                batch.get(i).complete(results[i]);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // tasks that slipped in while the thread was stopping
+        failPending();
+    }
+}
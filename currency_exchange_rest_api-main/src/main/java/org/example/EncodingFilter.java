@@ -10,8 +10,9 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 @WebFilter(value = {
-        "/currencies", "/currency/*", "/exchangeRate/*", "/exchangeRates", "/exchange"
-})
+        "/currencies", "/currency/*", "/exchangeRate/*", "/exchangeRates", "/exchangeRates/matrix",
+        "/exchangeRates/import", "/exchangeRates/stream", "/exchange", "/exchange/batch"
+}, asyncSupported = true)
 public class EncodingFilter extends HttpFilter {
 
     @Override
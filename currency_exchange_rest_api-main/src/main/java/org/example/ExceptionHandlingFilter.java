@@ -12,12 +12,24 @@ import org.example.exception.DatabaseOperationException;
 import org.example.exception.EntityExistsException;
 import org.example.exception.InvalidParameterException;
 import org.example.exception.NotFoundException;
+import org.example.log.LogContext;
+import org.example.log.Logger;
+
 import java.io.IOException;
 
-@WebFilter("/*")
+@WebFilter(value = "/*", asyncSupported = true)
 public class ExceptionHandlingFilter extends HttpFilter {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Logger log = Logger.get(ExceptionHandlingFilter.class);
+
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void init() {
+        ApplicationContext applicationContext = ApplicationContext.get(getServletContext());
+
+        objectMapper = applicationContext.getObjectMapper();
+    }
 
     @Override
     protected void doFilter(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
@@ -25,19 +37,34 @@ public class ExceptionHandlingFilter extends HttpFilter {
         try {
             super.doFilter(req, res, chain);
         } catch (RuntimeException e) {
-            int status = switch (e) {
-                case DatabaseOperationException ignored -> HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
-                case EntityExistsException ignored      -> HttpServletResponse.SC_CONFLICT;
-                case InvalidParameterException ignored  -> HttpServletResponse.SC_BAD_REQUEST;
-                case NotFoundException ignored          -> HttpServletResponse.SC_NOT_FOUND;
-                default -> HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
-            };
-
-            writeErrorResponse(res, status, e);
+            // this filter may run outside RequestIdFilter, whose context is already restored here
+            String previous = LogContext.setRequestId(RequestIdFilter.requestId(req));
+            try {
+                writeErrorResponse(objectMapper, res, e);
+            } finally {
+                LogContext.setRequestId(previous);
+            }
         }
     }
 
-    private void writeErrorResponse(HttpServletResponse response, int errorCode, RuntimeException e) throws IOException {
+    public static int resolveStatus(RuntimeException e) {
+        return switch (e) {
+            case DatabaseOperationException ignored -> HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+            case EntityExistsException ignored      -> HttpServletResponse.SC_CONFLICT;
+            case InvalidParameterException ignored  -> HttpServletResponse.SC_BAD_REQUEST;
+            case NotFoundException ignored          -> HttpServletResponse.SC_NOT_FOUND;
+            default -> HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        };
+    }
+
+    public static void writeErrorResponse(ObjectMapper objectMapper, HttpServletResponse response, RuntimeException e)
+            throws IOException {
+        int errorCode = resolveStatus(e);
+
+        if (errorCode >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+            log.error("Request failed", "status", errorCode, e);
+        }
+
         response.setStatus(errorCode);
         objectMapper.writeValue(response.getWriter(), new ErrorResponseDto(errorCode, e.getMessage()));
     }
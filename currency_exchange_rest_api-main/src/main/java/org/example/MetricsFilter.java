@@ -0,0 +1,105 @@
+package org.example;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.metrics.Histogram;
+import org.example.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records the latency of every request per endpoint, method and status in {@code http_server_requests_seconds}.
+ * The endpoint is the servlet mapping, e.g. {@code /currency/*}, so the number of series stays bounded. For the same
+ * reason methods other than the standard ones and statuses outside 100-599 are recorded as {@code OTHER}.
+ * Asynchronous requests are recorded when they complete.
+ */
+@WebFilter(value = "/*", asyncSupported = true)
+public class MetricsFilter extends HttpFilter {
+
+    private record Key(String endpoint, String method, int status) {}
+
+    private static final Set<String> METHODS = Set.of("GET", "POST", "PUT", "PATCH", "DELETE", "HEAD", "OPTIONS");
+    private static final String OTHER = "OTHER";
+    private static final int OTHER_STATUS = 0;
+
+    private final ConcurrentMap<Key, Histogram> histograms = new ConcurrentHashMap<>();
+    private MetricsRegistry metricsRegistry;
+
+    @Override
+    public void init() {
+        ApplicationContext applicationContext = ApplicationContext.get(getServletContext());
+
+        metricsRegistry = applicationContext.getMetricsRegistry();
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+        long start = System.nanoTime();
+
+        try {
+            super.doFilter(req, res, chain);
+        } catch (IOException | ServletException | RuntimeException e) {
+            // when ExceptionHandlingFilter runs inside this filter, it answers a RuntimeException with this status
+            record(req, e instanceof RuntimeException runtimeException
+                    ? ExceptionHandlingFilter.resolveStatus(runtimeException)
+                    : HttpServletResponse.SC_INTERNAL_SERVER_ERROR, start);
+            throw e;
+        }
+
+        if (req.isAsyncStarted()) {
+            req.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    record(req, res.getStatus(), start);
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        } else {
+            record(req, res.getStatus(), start);
+        }
+    }
+
+    private void record(HttpServletRequest req, int status, long start) {
+        long elapsed = System.nanoTime() - start;
+        HttpServletMapping mapping = req.getHttpServletMapping();
+        Key key = new Key(mapping != null ? mapping.getPattern() : OTHER,
+                method(req.getMethod()),
+                status >= 100 && status <= 599 ? status : OTHER_STATUS);
+
+        Histogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(key, missing -> metricsRegistry.histogram(
+                    "http_server_requests_seconds", "Duration of HTTP requests.",
+                    "endpoint", missing.endpoint(), "method", missing.method(), "status",
+                    missing.status() == OTHER_STATUS ? OTHER : Integer.toString(missing.status())
+            ));
+        }
+        histogram.record(elapsed);
+    }
+
+    private static String method(String method) {
+        return method != null && METHODS.contains(method) ? method : OTHER;
+    }
+}
@@ -0,0 +1,253 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.example.dto.ExchangeRateChangeDto;
+import org.example.entity.ExchangeRate;
+import org.example.utils.TimeUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes exchange rate changes to the Server-Sent Events subscribers of {@code /exchangeRates/stream}.
+ * <p>
+ * Subscribers are asynchronous requests written with non-blocking I/O, so an idle subscriber holds no thread.
+ * Every change is serialized once and queued per subscriber under its pair. While a slow subscriber cannot take more
+ * data, a newer change of a pair replaces the one still queued, so its backlog never exceeds one event per pair.
+ * Fan-out, writes and a periodic heartbeat, which also finds connections closed by the client, all run on a single
+ * thread. Container callbacks are handed over to it rather than writing themselves, so a container thread never waits
+ * for a subscriber that is being written to.
+ */
+public class RateChangeBroadcaster implements AutoCloseable {
+
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final int HEARTBEAT_KEY = -1;
+    private static final byte[] OPENING = "retry: 5000\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final ObjectMapper objectMapper;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rate-change-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RateChangeBroadcaster(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+
+        publisher.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Streams changes to an asynchronous request until the client disconnects or the broadcaster is closed.
+     */
+    public void subscribe(AsyncContext asyncContext) throws IOException {
+        Subscriber subscriber = new Subscriber(asyncContext);
+
+        asyncContext.addListener(subscriber);
+        subscribers.add(subscriber);
+        subscriber.offer(HEARTBEAT_KEY, OPENING);
+        subscriber.start();
+    }
+
+    public void publish(ExchangeRate exchangeRate) {
+        publish(List.of(exchangeRate));
+    }
+
+    /**
+     * Queues the committed rates for all subscribers. Returns at once, the events are written by the publisher thread.
+     */
+    public void publish(List<ExchangeRate> exchangeRates) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        int[] keys = new int[exchangeRates.size()];
+        List<ExchangeRateChangeDto> changes = new ArrayList<>(exchangeRates.size());
+
+        for (int i = 0; i < keys.length; i++) {
+            ExchangeRate exchangeRate = exchangeRates.get(i);
+
+            keys[i] = exchangeRate.getBaseCurrency().getKey() << 15 | exchangeRate.getTargetCurrency().getKey();
+            changes.add(new ExchangeRateChangeDto(
+                    exchangeRate.getBaseCurrency().getCode(),
+                    exchangeRate.getTargetCurrency().getCode(),
+                    exchangeRate.getRate(),
+                    exchangeRate.getValidFrom() != null ? TimeUtils.format(exchangeRate.getValidFrom()) : null
+            ));
+        }
+
+        execute(() -> {
+            List<byte[]> events = new ArrayList<>(changes.size());
+            changes.forEach(change -> events.add(event(change)));
+
+            for (Subscriber subscriber : subscribers) {
+                for (int i = 0; i < keys.length; i++) {
+                    subscriber.offer(keys[i], events.get(i));
+                }
+                subscriber.drain();
+            }
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void close() {
+        publisher.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+    }
+
+    private byte[] event(ExchangeRateChangeDto change) {
+        try {
+            // compact JSON holds no line breaks, so it fits in a single data line
+            return ("event: rate\ndata: " + objectMapper.writeValueAsString(change) + "\n\n")
+                    .getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            publisher.execute(task);
+        } catch (RejectedExecutionException ignored) {
+            // closed, subscribers are completed by close()
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offerHeartbeat();
+            subscriber.drain();
+        }
+    }
+
+    private final class Subscriber implements WriteListener, AsyncListener {
+
+        private final AsyncContext asyncContext;
+        private final ServletOutputStream out;
+        // queued events by pair key, in the order their pairs first changed
+        private final Map<Integer, byte[]> pending = new LinkedHashMap<>();
+        private boolean started;
+        private boolean unflushed;
+        private boolean closed;
+
+        private Subscriber(AsyncContext asyncContext) throws IOException {
+            this.asyncContext = asyncContext;
+            this.out = asyncContext.getResponse().getOutputStream();
+        }
+
+        private synchronized void start() {
+            started = true;
+            out.setWriteListener(this);
+        }
+
+        private synchronized void offer(int key, byte[] event) {
+            if (!closed) {
+                pending.put(key, event);
+            }
+        }
+
+        private synchronized void offerHeartbeat() {
+            if (!closed && pending.isEmpty()) {
+                pending.put(HEARTBEAT_KEY, HEARTBEAT);
+            }
+        }
+
+        /**
+         * Writes queued events while the connection takes them without blocking. Once it does not,
+         * the container calls {@link #onWritePossible()} when it does again.
+         */
+        private synchronized void drain() {
+            if (closed || !started) {
+                return;
+            }
+
+            try {
+                while (out.isReady()) {
+                    Iterator<byte[]> events = pending.values().iterator();
+
+                    if (events.hasNext()) {
+                        out.write(events.next());
+                        events.remove();
+                        unflushed = true;
+                    } else if (unflushed) {
+                        unflushed = false;
+                        out.flush();
+                    } else {
+                        return;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+
+        private synchronized void close() {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            pending.clear();
+            subscribers.remove(this);
+
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException ignored) {
+                // already completed by the container
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            execute(this::drain);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            execute(this::close);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            execute(this::close);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            execute(this::close);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            execute(this::close);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.exception.DatabaseOperationException;
+import org.example.log.LogContext;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs asynchronous servlet requests on virtual threads, so a request blocked on JDBC or the SQLite write lock
+ * holds no container thread.
+ * <p>
+ * At most {@code permits} requests run at once, matching the connection pools, the rest wait for a permit on their
+ * virtual thread. A request that waits longer than the connection timeout fails as if the pool had timed out.
+ * Disabled by default, servlets then handle requests on the container thread as before.
+ */
+public class RequestExecutor implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface Work {
+        void run() throws ServletException, IOException;
+    }
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private final boolean enabled;
+    private final Semaphore permits;
+    private final long permitTimeoutMs;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("request-", 0).factory()
+    );
+
+    public RequestExecutor(boolean enabled, int permits, long permitTimeoutMs, ObjectMapper objectMapper) {
+        this.enabled = enabled;
+        this.permits = new Semaphore(permits, true);
+        this.permitTimeoutMs = permitTimeoutMs;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs {@code work} on a virtual thread once a permit is free and completes the request afterwards.
+     * Exceptions are answered like {@link ExceptionHandlingFilter} does, which no longer sees them.
+     */
+    public void execute(AsyncContext asyncContext, Work work) {
+        String requestId = LogContext.getRequestId();
+
+        try {
+            executor.execute(() -> {
+                LogContext.setRequestId(requestId);
+                try {
+                    runWithPermit(work);
+                } catch (RuntimeException e) {
+                    writeError(asyncContext, e);
+                } catch (ServletException | IOException e) {
+                    sendError(asyncContext, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                } finally {
+                    asyncContext.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            sendError(asyncContext, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            asyncContext.complete();
+        }
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWithPermit(Work work) throws ServletException, IOException {
+        try {
+            if (!permits.tryAcquire(permitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new DatabaseOperationException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseOperationException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            work.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void writeError(AsyncContext asyncContext, RuntimeException e) {
+        HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+
+        try {
+            ExceptionHandlingFilter.writeErrorResponse(objectMapper, response, e);
+        } catch (IOException ignored) {
+            // the client is gone
+        }
+    }
+
+    private static void sendError(AsyncContext asyncContext, int status) {
+        HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+
+        try {
+            if (!response.isCommitted()) {
+                response.sendError(status);
+            }
+        } catch (IOException ignored) {
+            // the client is gone
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.log.LogContext;
+
+import java.io.IOException;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Gives every request a correlation id, taken from a well-formed {@code X-Request-Id} header or generated,
+ * echoes it in the response and attaches it to everything logged while the request is handled.
+ */
+@WebFilter(value = "/*", asyncSupported = true)
+public class RequestIdFilter extends HttpFilter {
+
+    public static final String HEADER = "X-Request-Id";
+
+    private static final String ATTRIBUTE = RequestIdFilter.class.getName();
+    private static final int MAX_LENGTH = 64;
+
+    @Override
+    protected void doFilter(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+        String requestId = requestId(req);
+        res.setHeader(HEADER, requestId);
+
+        String previous = LogContext.setRequestId(requestId);
+        try {
+            super.doFilter(req, res, chain);
+        } finally {
+            LogContext.setRequestId(previous);
+        }
+    }
+
+    /**
+     * The id of {@code req}, assigned on first use, so filters running before this one see the same id.
+     */
+    public static String requestId(HttpServletRequest req) {
+        Object requestId = req.getAttribute(ATTRIBUTE);
+
+        if (requestId == null) {
+            String header = req.getHeader(HEADER);
+            requestId = isValid(header) ? header : HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextLong());
+            req.setAttribute(ATTRIBUTE, requestId);
+        }
+        return (String) requestId;
+    }
+
+    private static boolean isValid(String header) {
+        if (header == null || header.isEmpty() || header.length() > MAX_LENGTH) {
+            return false;
+        }
+
+        for (int i = 0; i < header.length(); i++) {
+            char c = header.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '_' || c == '.')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,207 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The UTF-8 JSON of single currencies and exchange rates, ready to be written to a response as is.
+ * <p>
+ * Currencies are keyed by their {@link org.example.utils.CurrencyCodes} key and exchange rates by
+ * {@code baseKey << 15 | targetKey}. Writes invalidate exactly the entries they affect. The total size is bounded:
+ * once it is exceeded, entries are evicted in CLOCK order, those read since the last sweep getting a second chance.
+ * A {@code maxBytes} of zero disables the cache.
+ */
+public class ResponseCache {
+
+    // rough cost of the map node, entry and array headers on top of the bytes themselves
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private static final class Entry {
+        private final byte[] body;
+        private volatile boolean referenced;
+
+        private Entry(byte[] body) {
+            this.body = body;
+        }
+
+        private long size() {
+            return body.length + ENTRY_OVERHEAD;
+        }
+    }
+
+    private final long maxBytes;
+    private final DataVersion dataVersion;
+    private final ConcurrentMap<Integer, Entry> currencies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Entry> exchangeRates = new ConcurrentHashMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResponseCache(long maxBytes, DataVersion dataVersion) {
+        this.maxBytes = maxBytes;
+        this.dataVersion = dataVersion;
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Returns the cached JSON of the currency, or {@code null}.
+     */
+    public byte[] getCurrency(int key) {
+        return get(currencies, key);
+    }
+
+    /**
+     * Caches the JSON of a currency read at {@code version}, see {@link #put}.
+     */
+    public void putCurrency(int key, DataVersion.Stamp version, byte[] body) {
+        put(currencies, key, version, body);
+    }
+
+    public byte[] getExchangeRate(int baseKey, int targetKey) {
+        return get(exchangeRates, pairKey(baseKey, targetKey));
+    }
+
+    public void putExchangeRate(int baseKey, int targetKey, DataVersion.Stamp version, byte[] body) {
+        put(exchangeRates, pairKey(baseKey, targetKey), version, body);
+    }
+
+    /**
+     * Drops the currency and every exchange rate that embeds it.
+     */
+    public void invalidateCurrency(int key) {
+        remove(currencies, key);
+
+        for (Integer pair : exchangeRates.keySet()) {
+            if (pair >>> 15 == key || (pair & 0x7FFF) == key) {
+                remove(exchangeRates, pair);
+            }
+        }
+    }
+
+    public void invalidateExchangeRate(int baseKey, int targetKey) {
+        remove(exchangeRates, pairKey(baseKey, targetKey));
+    }
+
+    public void clear() {
+        currencies.keySet().forEach(key -> remove(currencies, key));
+        exchangeRates.keySet().forEach(key -> remove(exchangeRates, key));
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public int getEntryCount() {
+        return currencies.size() + exchangeRates.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private byte[] get(ConcurrentMap<Integer, Entry> entries, int key) {
+        Entry entry = entries.get(key);
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry.body;
+    }
+
+    /**
+     * Caches {@code body}, produced from data read after {@code version} was taken. When a write has committed
+     * since then the body may predate it, so it is not kept: the writer invalidates after bumping the version,
+     * either before the entry is added or, if it comes later, by removing it.
+     */
+    private void put(ConcurrentMap<Integer, Entry> entries, int key, DataVersion.Stamp version, byte[] body) {
+        if (!isEnabled() || dataVersion.current() != version) {
+            return;
+        }
+
+        Entry entry = new Entry(body);
+        Entry previous = entries.put(key, entry);
+
+        bytes.addAndGet(entry.size() - (previous != null ? previous.size() : 0));
+
+        if (dataVersion.current() != version) {
+            remove(entries, key, entry);
+        }
+
+        if (bytes.get() > maxBytes) {
+            evict();
+        }
+    }
+
+    private void remove(ConcurrentMap<Integer, Entry> entries, int key) {
+        Entry removed = entries.remove(key);
+
+        if (removed != null) {
+            bytes.addAndGet(-removed.size());
+        }
+    }
+
+    private void remove(ConcurrentMap<Integer, Entry> entries, int key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            bytes.addAndGet(-entry.size());
+        }
+    }
+
+    private synchronized void evict() {
+        while (bytes.get() > maxBytes && !(currencies.isEmpty() && exchangeRates.isEmpty())) {
+            sweep(exchangeRates);
+            sweep(currencies);
+        }
+    }
+
+    private void sweep(ConcurrentMap<Integer, Entry> entries) {
+        Iterator<Map.Entry<Integer, Entry>> iterator = entries.entrySet().iterator();
+
+        while (iterator.hasNext() && bytes.get() > maxBytes) {
+            Map.Entry<Integer, Entry> next = iterator.next();
+            Entry entry = next.getValue();
+
+            if (entry.referenced) {
+                entry.referenced = false;
+            } else if (entries.remove(next.getKey(), entry)) {
+                bytes.addAndGet(-entry.size());
+                evictions.increment();
+            }
+        }
+    }
+
+    private static int pairKey(int baseKey, int targetKey) {
+        return baseKey << 15 | targetKey;
+    }
+}
@@ -0,0 +1,264 @@
+package org.example;
+
+import org.sqlite.SQLiteConnection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the prepared statements of every physical SQLite connection open across pool checkouts, so each SQL string
+ * is parsed and planned once per connection instead of on every call.
+ * <p>
+ * Statements are prepared on the physical connection, where the pool does not close them when the connection is
+ * returned. Closing a cached statement only closes its result set and clears its parameters. Each connection keeps
+ * up to {@code maxStatements}, the least recently used are closed beyond that. A statement prepared again while its
+ * cached copy is in use gets a separate, uncached statement. When the pool closes a physical connection, SQLite
+ * finalizes its statements and the cache entry is dropped.
+ */
+public class StatementCache {
+
+    private record Key(String sql, int autoGeneratedKeys) {}
+
+    private final int maxStatements;
+    private final Map<SQLiteConnection, Statements> connections = new IdentityHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StatementCache(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    /**
+     * Returns {@code connection}, a pooled connection, with {@code prepareStatement} served from the cache of
+     * its physical connection.
+     */
+    public Connection wrap(Connection connection) throws SQLException {
+        SQLiteConnection physical = connection.unwrap(SQLiteConnection.class);
+
+        return (Connection) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new CachingConnection(connection, statementsOf(physical)));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private Statements statementsOf(SQLiteConnection physical) {
+        synchronized (connections) {
+            Statements statements = connections.get(physical);
+
+            if (statements == null) {
+                // a new physical connection usually replaces one the pool closed
+                connections.keySet().removeIf(StatementCache::isClosed);
+                statements = new Statements(physical);
+                connections.put(physical, statements);
+            }
+            return statements;
+        }
+    }
+
+    private static boolean isClosed(Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * The cached statements of one physical connection, only used by the thread the connection is checked out to.
+     */
+    private final class Statements extends LinkedHashMap<Key, CachedStatement> {
+
+        private final SQLiteConnection physical;
+
+        Statements(SQLiteConnection physical) {
+            super(16, 0.75f, true);
+            this.physical = physical;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CachedStatement> eldest) {
+            if (size() <= maxStatements) {
+                return false;
+            }
+
+            eldest.getValue().evict();
+            return true;
+        }
+    }
+
+    private final class CachingConnection implements InvocationHandler {
+
+        private final Connection target;
+        private final Statements statements;
+        private final List<CachedStatement> borrowed = new ArrayList<>(4);
+
+        CachingConnection(Connection target, Statements statements) {
+            this.target = target;
+            this.statements = statements;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement" -> {
+                    if (args.length == 1) {
+                        return prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+                    }
+                    if (args.length == 2 && args[1] instanceof Integer autoGeneratedKeys) {
+                        return prepare((String) args[0], autoGeneratedKeys);
+                    }
+                }
+                case "close" -> {
+                    try {
+                        releaseBorrowed();
+                    } finally {
+                        target.close();
+                    }
+                    return null;
+                }
+                default -> {
+                }
+            }
+            return delegate(target, method, args);
+        }
+
+        // statements the caller left open go back to the cache with the connection
+        private void releaseBorrowed() throws SQLException {
+            SQLException failure = null;
+
+            for (CachedStatement statement : borrowed) {
+                try {
+                    statement.release();
+                } catch (SQLException e) {
+                    failure = e;
+                }
+            }
+            borrowed.clear();
+
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+            Key key = new Key(sql, autoGeneratedKeys);
+            CachedStatement cached = statements.get(key);
+
+            if (cached != null && cached.inUse) {
+                misses.increment();
+                return target.prepareStatement(sql, autoGeneratedKeys);
+            }
+
+            if (cached == null || cached.evicted) {
+                misses.increment();
+                cached = new CachedStatement(statements.physical.prepareStatement(sql, autoGeneratedKeys));
+                statements.put(key, cached);
+            } else {
+                hits.increment();
+            }
+
+            cached.inUse = true;
+            borrowed.add(cached);
+            return cached.proxy;
+        }
+    }
+
+    private static final class CachedStatement implements InvocationHandler {
+
+        private final PreparedStatement target;
+        private final PreparedStatement proxy;
+        private ResultSet resultSet;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(PreparedStatement target) {
+            this.target = target;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "executeQuery" -> {
+                    resultSet = (ResultSet) delegate(target, method, args);
+                    return resultSet;
+                }
+                case "close" -> {
+                    release();
+                    return null;
+                }
+                case "isClosed" -> {
+                    return !inUse;
+                }
+                default -> {
+                    return delegate(target, method, args);
+                }
+            }
+        }
+
+        void release() throws SQLException {
+            if (!inUse) {
+                return;
+            }
+            inUse = false;
+
+            try {
+                if (resultSet != null) {
+                    // resets the statement, so it no longer holds a read transaction open
+                    resultSet.close();
+                    resultSet = null;
+                }
+                target.clearParameters();
+                target.clearBatch();
+            } catch (SQLException e) {
+                // prepared again on next use
+                evicted = true;
+                throw e;
+            } finally {
+                if (evicted) {
+                    target.close();
+                }
+            }
+        }
+
+        void evict() {
+            evicted = true;
+
+            if (!inUse) {
+                try {
+                    target.close();
+                } catch (SQLException ignored) {
+                    // the statement is gone either way
+                }
+            }
+        }
+    }
+}
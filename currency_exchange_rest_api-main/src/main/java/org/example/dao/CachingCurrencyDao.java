@@ -0,0 +1,154 @@
+package org.example.dao;
+
+import org.example.ResponseCache;
+import org.example.entity.Currency;
+import org.example.utils.CurrencyCodes;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of another {@link CurrencyDao}.
+ * <p>
+ * Lookups by id and by code, including misses, are cached until the next write.
+ * Codes are cached in an array indexed by their {@link CurrencyCodes} key.
+ * A write replaces both tables instead of clearing them, so a lookup that raced with the write
+ * can only fill the discarded tables and never brings a stale entry back.
+ * Updates and deletes also drop the currency from the {@link ResponseCache}, together with the rates that embed it.
+ */
+public class CachingCurrencyDao implements CurrencyDao {
+
+    private final CurrencyDao delegate;
+    private final ResponseCache responseCache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private volatile Cache cache = new Cache();
+
+    public CachingCurrencyDao(CurrencyDao delegate, ResponseCache responseCache) {
+        this.delegate = delegate;
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public Optional<Currency> findById(Long id) {
+        Cache current = cache;
+        Optional<Currency> currency = current.byId.get(id);
+
+        if (currency != null) {
+            hits.increment();
+            return currency;
+        }
+
+        misses.increment();
+        Optional<Currency> loaded = delegate.findById(id);
+        current.byId.put(id, loaded);
+        loaded.ifPresent(value -> {
+            int key = value.getKey();
+            if (key != CurrencyCodes.NO_KEY) {
+                current.byKey.set(key, loaded);
+            }
+        });
+
+        return loaded;
+    }
+
+    @Override
+    public Optional<Currency> findByCode(String code) {
+        int key = CurrencyCodes.key(code);
+
+        if (key == CurrencyCodes.NO_KEY) {
+            // not a valid code, nothing to cache it under
+            return delegate.findByCode(code);
+        }
+
+        Cache current = cache;
+        Optional<Currency> currency = current.byKey.get(key);
+
+        if (currency != null) {
+            hits.increment();
+            return currency;
+        }
+
+        misses.increment();
+        Optional<Currency> loaded = delegate.findByCode(code);
+        current.byKey.set(key, loaded);
+        loaded.ifPresent(value -> current.byId.put(value.getId(), loaded));
+
+        return loaded;
+    }
+
+    @Override
+    public List<Currency> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public void streamAll(long afterId, int limit, Consumer<? super Currency> action) {
+        delegate.streamAll(afterId, limit, action);
+    }
+
+    @Override
+    public Currency save(Currency entity) {
+        try {
+            return delegate.save(entity);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public Optional<Currency> update(Currency entity) {
+        Optional<Currency> previous = entity.getId() != null ? findById(entity.getId()) : Optional.empty();
+
+        try {
+            return delegate.update(entity);
+        } finally {
+            invalidate();
+            previous.ifPresent(this::invalidateResponses);
+            invalidateResponses(entity);
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        Optional<Currency> previous = findById(id);
+
+        try {
+            delegate.delete(id);
+        } finally {
+            invalidate();
+            previous.ifPresent(this::invalidateResponses);
+        }
+    }
+
+    public void invalidate() {
+        cache = new Cache();
+    }
+
+    private void invalidateResponses(Currency currency) {
+        int key = currency.getKey();
+
+        if (key != CurrencyCodes.NO_KEY) {
+            responseCache.invalidateCurrency(key);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private static final class Cache {
+        private final ConcurrentMap<Long, Optional<Currency>> byId = new ConcurrentHashMap<>();
+        private final AtomicReferenceArray<Optional<Currency>> byKey = new AtomicReferenceArray<>(CurrencyCodes.KEY_SPACE);
+    }
+}
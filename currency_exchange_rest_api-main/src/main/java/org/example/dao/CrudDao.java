@@ -2,6 +2,7 @@ package org.example.dao;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface CrudDao<T, ID> {
 
@@ -9,6 +10,12 @@ public interface CrudDao<T, ID> {
 
     List<T> findAll();
 
+    /**
+     * Passes entities with id greater than {@code afterId} to {@code action} in id order while reading them,
+     * at most {@code limit} of them or all of them when {@code limit} is negative.
+     */
+    void streamAll(long afterId, int limit, Consumer<? super T> action);
+
     T save(T entity);
 
     Optional<T> update(T entity);
@@ -0,0 +1,46 @@
+package org.example.dao;
+
+import org.example.entity.Currency;
+import org.example.utils.CurrencyCodes;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * One shared {@link Currency} instance per currency code.
+ * <p>
+ * Rows read from the database are turned into the instance already held for their code when all fields match,
+ * so thousands of exchange rates point at a handful of currency objects instead of two copies each.
+ * A row that differs (the currency was updated) replaces the held instance. Currencies are immutable, so sharing
+ * an instance between rates, caches and application contexts cannot let one of them change it for the others.
+ */
+final class CurrencyFlyweights {
+
+    private static final AtomicReferenceArray<Currency> CURRENCIES = new AtomicReferenceArray<>(CurrencyCodes.KEY_SPACE);
+
+    private CurrencyFlyweights() {
+    }
+
+    static Currency get(long id, String code, String fullName, String sign) {
+        int key = CurrencyCodes.key(code);
+
+        if (key == CurrencyCodes.NO_KEY) {
+            return new Currency(id, code, fullName, sign);
+        }
+
+        Currency existing = CURRENCIES.get(key);
+
+        if (existing != null
+                && existing.getId() == id
+                && existing.getCode().equals(code)
+                && Objects.equals(existing.getFullName(), fullName)
+                && Objects.equals(existing.getSign(), sign)) {
+            return existing;
+        }
+
+        String canonicalCode = CurrencyCodes.canonical(key);
+        Currency currency = new Currency(id, canonicalCode != null ? canonicalCode : code, fullName, sign);
+        CURRENCIES.set(key, currency);
+        return currency;
+    }
+}
@@ -2,9 +2,22 @@ package org.example.dao;
 
 import org.example.entity.ExchangeRate;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ExchangeRateDao extends CrudDao<ExchangeRate, Long> {
 
     Optional<ExchangeRate> findByCodes(String baseCurrencyCode, String targetCurrencyCode);
+
+    /**
+     * Inserts the rates of new pairs and overwrites those of existing ones in a single transaction,
+     * then sets the id and {@code validFrom} of every entity.
+     */
+    void upsertAll(List<ExchangeRate> exchangeRates);
+
+    /**
+     * Passes every recorded rate of every pair to {@code action} in {@code validFrom} order.
+     */
+    void streamHistory(Consumer<? super ExchangeRate> action);
 }
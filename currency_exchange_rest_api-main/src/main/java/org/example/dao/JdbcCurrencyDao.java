@@ -1,6 +1,7 @@
 package org.example.dao;
 
 import org.example.DatabaseConnectionManager;
+import org.example.DatabaseWriter;
 import org.example.entity.Currency;
 import org.example.exception.DatabaseOperationException;
 import org.example.exception.EntityExistsException;
@@ -11,9 +12,18 @@ import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class JdbcCurrencyDao implements CurrencyDao {
 
+    private final DatabaseConnectionManager connectionManager;
+    private final DatabaseWriter databaseWriter;
+
+    public JdbcCurrencyDao(DatabaseConnectionManager connectionManager, DatabaseWriter databaseWriter) {
+        this.connectionManager = connectionManager;
+        this.databaseWriter = databaseWriter;
+    }
+
     @Override
     public Optional<Currency> findById(Long id) {
         final String query = """
@@ -22,7 +32,7 @@ public class JdbcCurrencyDao implements CurrencyDao {
             WHERE id = ?
             """;
 
-        try (Connection connection = DatabaseConnectionManager.getConnection();
+        try (Connection connection = connectionManager.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
 
             statement.setLong(1, id);
@@ -41,22 +51,31 @@ public class JdbcCurrencyDao implements CurrencyDao {
 
     @Override
     public List<Currency> findAll() {
+        List<Currency> currencies = new ArrayList<>();
+        streamAll(0, -1, currencies::add);
+        return currencies;
+    }
+
+    @Override
+    public void streamAll(long afterId, int limit, Consumer<? super Currency> action) {
         final String query = """
             SELECT *
             FROM Currencies
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?
             """;
 
-        try (Connection connection = DatabaseConnectionManager.getConnection();
+        try (Connection connection = connectionManager.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
 
+            statement.setLong(1, afterId);
+            statement.setInt(2, limit);
             ResultSet resultSet = statement.executeQuery();
-            List<Currency> currencies = new ArrayList<>();
 
             while (resultSet.next()) {
-                currencies.add(getCurrency(resultSet));
+                action.accept(getCurrency(resultSet));
             }
-
-            return currencies;
         } catch (SQLException e) {
             throw new DatabaseOperationException(
                     "Failed to read currencies from the database", e
@@ -71,47 +90,48 @@ public class JdbcCurrencyDao implements CurrencyDao {
             VALUES (?, ?, ?)
             """;
 
-        try (Connection connection = DatabaseConnectionManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-
-            statement.setString(1, entity.getCode());
-            statement.setString(2, entity.getFullName());
-            statement.setString(3, entity.getSign());
+        return databaseWriter.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
 
-            int affectedRows = statement.executeUpdate();
+                statement.setString(1, entity.getCode());
+                statement.setString(2, entity.getFullName());
+                statement.setString(3, entity.getSign());
 
-            if (affectedRows == 0) {
-                throw new DatabaseOperationException(
-                        "Failed to save currency with code '" + entity.getCode() + "' to the database"
-                );
-            }
+                int affectedRows = statement.executeUpdate();
 
-            try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    return new Currency(
-                            generatedKeys.getLong(1),
-                            entity.getCode(),
-                            entity.getFullName(),
-                            entity.getSign()
-                    );
-                } else {
+                if (affectedRows == 0) {
                     throw new DatabaseOperationException(
-                            "Failed to retrieve ID for the saved currency");
+                            "Failed to save currency with code '" + entity.getCode() + "' to the database"
+                    );
                 }
-            }
 
-        } catch (SQLException e) {
-            if (e instanceof SQLiteException exception) {
-                if (exception.getResultCode().code == SQLiteErrorCode.SQLITE_CONSTRAINT_UNIQUE.code) {
-                    throw new EntityExistsException(
-                            "Currency with code '" + entity.getCode() + "' already exists"
-                    );
+                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        return new Currency(
+                                generatedKeys.getLong(1),
+                                entity.getCode(),
+                                entity.getFullName(),
+                                entity.getSign()
+                        );
+                    } else {
+                        throw new DatabaseOperationException(
+                                "Failed to retrieve ID for the saved currency");
+                    }
                 }
+
+            } catch (SQLException e) {
+                if (e instanceof SQLiteException exception) {
+                    if (exception.getResultCode().code == SQLiteErrorCode.SQLITE_CONSTRAINT_UNIQUE.code) {
+                        throw new EntityExistsException(
+                                "Currency with code '" + entity.getCode() + "' already exists"
+                        );
+                    }
+                }
+                throw new DatabaseOperationException(
+                        "Failed to save currency with code '" + entity.getCode() + "' to the database", e
+                );
             }
-            throw new DatabaseOperationException(
-                    "Failed to save currency with code '" + entity.getCode() + "' to the database", e
-            );
-        }
+        });
     }
 
     @Override
@@ -122,25 +142,26 @@ public class JdbcCurrencyDao implements CurrencyDao {
             WHERE id = ?
             """;
 
-        try (Connection connection = DatabaseConnectionManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
+        return databaseWriter.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
 
-            statement.setString(1, entity.getCode());
-            statement.setString(2, entity.getFullName());
-            statement.setString(3, entity.getSign());
-            statement.setLong(4, entity.getId());
+                statement.setString(1, entity.getCode());
+                statement.setString(2, entity.getFullName());
+                statement.setString(3, entity.getSign());
+                statement.setLong(4, entity.getId());
 
-            int affectedRows = statement.executeUpdate();
+                int affectedRows = statement.executeUpdate();
 
-            if (affectedRows > 0) {
-                return Optional.of(entity);
+                if (affectedRows > 0) {
+                    return Optional.of(entity);
+                }
+            } catch (SQLException e) {
+                throw new DatabaseOperationException(
+                        "Failed to update currency with id '" + entity.getId() + "' in the database", e
+                );
             }
-        } catch (SQLException e) {
-            throw new DatabaseOperationException(
-                    "Failed to update currency with id '" + entity.getId() + "' in the database", e
-            );
-        }
-        return Optional.empty();
+            return Optional.empty();
+        });
     }
 
     @Override
@@ -150,17 +171,18 @@ public class JdbcCurrencyDao implements CurrencyDao {
             WHERE id = ?
             """;
 
-        try (Connection connection = DatabaseConnectionManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
+        databaseWriter.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
 
-            statement.setLong(1, id);
-            statement.executeUpdate();
+                statement.setLong(1, id);
+                return statement.executeUpdate();
 
-        } catch (SQLException e) {
-            throw new DatabaseOperationException(
-                    "Failed to delete currency with id '" + id + "' from the database", e
-            );
-        }
+            } catch (SQLException e) {
+                throw new DatabaseOperationException(
+                        "Failed to delete currency with id '" + id + "' from the database", e
+                );
+            }
+        });
     }
 
     @Override
@@ -171,7 +193,7 @@ public class JdbcCurrencyDao implements CurrencyDao {
             WHERE code = ?
             """;
 
-        try (Connection connection = DatabaseConnectionManager.getConnection();
+        try (Connection connection = connectionManager.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
 
             statement.setString(1, code);
@@ -189,7 +211,7 @@ public class JdbcCurrencyDao implements CurrencyDao {
     }
 
     private static Currency getCurrency(ResultSet resultSet) throws SQLException {
-        return new Currency(
+        return CurrencyFlyweights.get(
                 resultSet.getLong("id"),
                 resultSet.getString("code"),
                 resultSet.getString("full_name"),
@@ -1,20 +1,35 @@
 package org.example.dao;
 
 import org.example.DatabaseConnectionManager;
-import org.example.entity.Currency;
+import org.example.DatabaseWriter;
 import org.example.entity.ExchangeRate;
 import org.example.exception.DatabaseOperationException;
 import org.example.exception.EntityExistsException;
+import org.example.utils.CurrencyCodes;
+import org.example.utils.FixedPoint;
 import org.sqlite.SQLiteErrorCode;
 import org.sqlite.SQLiteException;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
 
 public class JdbcExchangeRateDao implements ExchangeRateDao {
 
+    private final DatabaseConnectionManager connectionManager;
+    private final DatabaseWriter databaseWriter;
+
+    public JdbcExchangeRateDao(DatabaseConnectionManager connectionManager, DatabaseWriter databaseWriter) {
+        this.connectionManager = connectionManager;
+        this.databaseWriter = databaseWriter;
+    }
+
     @Override
     public Optional<ExchangeRate> findById(Long id) {
         final String query = """
@@ -28,14 +43,15 @@ public class JdbcExchangeRateDao implements ExchangeRateDao {
                 tc.code AS target_code,
                 tc.full_name AS target_name,
                 tc.sign AS target_sign,
-                er.rate AS rate
+                er.rate_unscaled AS rate_unscaled,
+                er.rate_scale AS rate_scale
             FROM Exchange_rates er
             JOIN Currencies bc ON er.base_currency_id = bc.id
             JOIN Currencies tc ON er.target_currency_id = tc.id
             WHERE er.id = ?
             """;
 
-        try (Connection connection = DatabaseConnectionManager.getConnection();
+        try (Connection connection = connectionManager.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
 
             statement.setLong(1, id);
@@ -54,6 +70,13 @@ public class JdbcExchangeRateDao implements ExchangeRateDao {
 
     @Override
     public List<ExchangeRate> findAll() {
+        List<ExchangeRate> exchangeRates = new ArrayList<>();
+        streamAll(0, -1, exchangeRates::add);
+        return exchangeRates;
+    }
+
+    @Override
+    public void streamAll(long afterId, int limit, Consumer<? super ExchangeRate> action) {
         final String query = """
             SELECT
                 er.id AS id,
@@ -65,24 +88,26 @@ public class JdbcExchangeRateDao implements ExchangeRateDao {
                 tc.code AS target_code,
                 tc.full_name AS target_name,
                 tc.sign AS target_sign,
-                er.rate AS rate
+                er.rate_unscaled AS rate_unscaled,
+                er.rate_scale AS rate_scale
             FROM Exchange_rates er
             JOIN Currencies bc ON er.base_currency_id = bc.id
             JOIN Currencies tc ON er.target_currency_id = tc.id
+            WHERE er.id > ?
             ORDER BY er.id
+            LIMIT ?
             """;
 
-        try (Connection connection = DatabaseConnectionManager.getConnection();
+        try (Connection connection = connectionManager.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
 
+            statement.setLong(1, afterId);
+            statement.setInt(2, limit);
             ResultSet resultSet = statement.executeQuery();
-            List<ExchangeRate> exchangeRates = new ArrayList<>();
 
             while (resultSet.next()) {
-                exchangeRates.add(getExchangeRate(resultSet));
+                action.accept(getExchangeRate(resultSet));
             }
-
-            return exchangeRates;
         } catch (SQLException e) {
             throw new DatabaseOperationException(
                     "Failed to read exchange rates from the database", e
@@ -93,82 +118,205 @@ public class JdbcExchangeRateDao implements ExchangeRateDao {
     @Override
     public ExchangeRate save(ExchangeRate entity) {
         final String query = """
-            INSERT INTO Exchange_rates (base_currency_id, target_currency_id, rate)
-            VALUES (?, ?, ?)
+            INSERT INTO Exchange_rates (base_currency_id, target_currency_id, rate_unscaled, rate_scale, pair_key)
+            VALUES (?, ?, ?, ?, ?)
             """;
 
-        try (Connection connection = DatabaseConnectionManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+        return databaseWriter.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
 
-            statement.setLong(1, entity.getBaseCurrency().getId());
-            statement.setLong(2, entity.getTargetCurrency().getId());
-            statement.setBigDecimal(3, entity.getRate());
+                BigDecimal rate = FixedPoint.normalize(entity.getRate());
 
-            int affectedRows = statement.executeUpdate();
+                statement.setLong(1, entity.getBaseCurrency().getId());
+                statement.setLong(2, entity.getTargetCurrency().getId());
+                statement.setLong(3, FixedPoint.unscaled(rate));
+                statement.setInt(4, rate.scale());
+                setPairKey(statement, 5, entity);
+
+                int affectedRows = statement.executeUpdate();
+
+                if (affectedRows == 0) {
+                    throw new DatabaseOperationException(
+                            String.format("Failed to save exchange rate '%s' to '%s' to the database",
+                                    entity.getBaseCurrency().getCode(),
+                                    entity.getTargetCurrency().getCode())
+                    );
+                }
+
+                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        entity.setId(generatedKeys.getLong(1));
+                    } else {
+                        throw new DatabaseOperationException(
+                                "Failed to retrieve ID for the saved exchange rate");
+                    }
+                }
 
-            if (affectedRows == 0) {
+                insertHistory(connection, entity, rate);
+
+                return entity;
+
+            } catch (SQLException e) {
+                if (e instanceof SQLiteException exception) {
+                    if (exception.getResultCode().code == SQLiteErrorCode.SQLITE_CONSTRAINT_UNIQUE.code) {
+                        throw new EntityExistsException(
+                                String.format("Exchange rate '%s' to '%s' already exists",
+                                        entity.getBaseCurrency().getCode(),
+                                        entity.getTargetCurrency().getCode())
+                        );
+                    }
+                }
                 throw new DatabaseOperationException(
                         String.format("Failed to save exchange rate '%s' to '%s' to the database",
                                 entity.getBaseCurrency().getCode(),
-                                entity.getTargetCurrency().getCode())
+                                entity.getTargetCurrency().getCode()), e
                 );
             }
+        });
+    }
 
-            try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    entity.setId(generatedKeys.getLong(1));
-                } else {
-                    throw new DatabaseOperationException(
-                            "Failed to retrieve ID for the saved exchange rate");
+    @Override
+    public Optional<ExchangeRate> update(ExchangeRate entity) {
+        final String query = """
+            UPDATE Exchange_rates
+            SET rate_unscaled = ?, rate_scale = ?
+            WHERE base_currency_id = ? AND target_currency_id = ?
+            """;
+
+        return databaseWriter.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+
+                BigDecimal rate = FixedPoint.normalize(entity.getRate());
+
+                statement.setLong(1, FixedPoint.unscaled(rate));
+                statement.setInt(2, rate.scale());
+                statement.setLong(3, entity.getBaseCurrency().getId());
+                statement.setLong(4, entity.getTargetCurrency().getId());
+
+                int affectedRows = statement.executeUpdate();
+
+                if (affectedRows > 0) {
+                    insertHistory(connection, entity, rate);
+                    return Optional.of(entity);
                 }
+            } catch (SQLException e) {
+                throw new DatabaseOperationException(
+                        "Failed to update exchange rate with id '" + entity.getId() + "' in the database", e
+                );
             }
+            return Optional.empty();
+        });
+    }
 
-            return entity;
+    @Override
+    public void upsertAll(List<ExchangeRate> exchangeRates) {
+        final String upsertQuery = """
+            INSERT INTO Exchange_rates (base_currency_id, target_currency_id, rate_unscaled, rate_scale, pair_key)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (base_currency_id, target_currency_id)
+            DO UPDATE SET rate_unscaled = excluded.rate_unscaled, rate_scale = excluded.rate_scale
+            """;
+        final String historyQuery = """
+            INSERT INTO Exchange_rate_history (base_currency_id, target_currency_id, rate_unscaled, rate_scale, valid_from)
+            VALUES (?, ?, ?, ?, ?)
+            """;
 
-        } catch (SQLException e) {
-            if (e instanceof SQLiteException exception) {
-                if (exception.getResultCode().code == SQLiteErrorCode.SQLITE_CONSTRAINT_UNIQUE.code) {
-                    throw new EntityExistsException(
-                            String.format("Exchange rate '%s' to '%s' already exists",
-                                    entity.getBaseCurrency().getCode(),
-                                    entity.getTargetCurrency().getCode())
-                    );
+        if (exchangeRates.isEmpty()) {
+            return;
+        }
+
+        databaseWriter.execute(connection -> {
+            long validFrom = System.currentTimeMillis();
+
+            try (PreparedStatement upsert = connection.prepareStatement(upsertQuery);
+                 PreparedStatement history = connection.prepareStatement(historyQuery)) {
+
+                for (ExchangeRate exchangeRate : exchangeRates) {
+                    BigDecimal rate = FixedPoint.normalize(exchangeRate.getRate());
+                    long baseId = exchangeRate.getBaseCurrency().getId();
+                    long targetId = exchangeRate.getTargetCurrency().getId();
+
+                    upsert.setLong(1, baseId);
+                    upsert.setLong(2, targetId);
+                    upsert.setLong(3, FixedPoint.unscaled(rate));
+                    upsert.setInt(4, rate.scale());
+                    setPairKey(upsert, 5, exchangeRate);
+                    upsert.addBatch();
+
+                    history.setLong(1, baseId);
+                    history.setLong(2, targetId);
+                    history.setLong(3, FixedPoint.unscaled(rate));
+                    history.setInt(4, rate.scale());
+                    history.setLong(5, validFrom);
+                    history.addBatch();
+
+                    exchangeRate.setValidFrom(validFrom);
                 }
+
+                upsert.executeBatch();
+                history.executeBatch();
+
+                setIds(connection, exchangeRates);
+            } catch (SQLException e) {
+                throw new DatabaseOperationException("Failed to import exchange rates into the database", e);
             }
-            throw new DatabaseOperationException(
-                    String.format("Failed to save exchange rate '%s' to '%s' to the database",
-                            entity.getBaseCurrency().getCode(),
-                            entity.getTargetCurrency().getCode()), e
-            );
-        }
+            return null;
+        });
     }
 
-    @Override
-    public Optional<ExchangeRate> update(ExchangeRate entity) {
-        final String query = """
-            UPDATE Exchange_rates
-            SET rate = ?
+    // a batch reports no ids, so the upserted pairs are read back in one lookup on the pair key index
+    private static void setIds(Connection connection, List<ExchangeRate> exchangeRates) throws SQLException {
+        final String byPairKeysQuery = """
+            SELECT pair_key, id
+            FROM Exchange_rates
+            WHERE pair_key IN (SELECT value FROM json_each(?))
+            """;
+        final String byCurrencyIdsQuery = """
+            SELECT id
+            FROM Exchange_rates
             WHERE base_currency_id = ? AND target_currency_id = ?
             """;
 
-        try (Connection connection = DatabaseConnectionManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
+        StringJoiner pairKeys = new StringJoiner(",", "[", "]");
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            int pairKey = pairKey(exchangeRate);
+
+            if (pairKey != CurrencyCodes.NO_KEY) {
+                pairKeys.add(Integer.toString(pairKey));
+            }
+        }
 
-            statement.setBigDecimal(1, entity.getRate());
-            statement.setLong(2, entity.getBaseCurrency().getId());
-            statement.setLong(3, entity.getTargetCurrency().getId());
+        Map<Integer, Long> ids = new HashMap<>();
 
-            int affectedRows = statement.executeUpdate();
+        try (PreparedStatement statement = connection.prepareStatement(byPairKeysQuery)) {
+            statement.setString(1, pairKeys.toString());
 
-            if (affectedRows > 0) {
-                return Optional.of(entity);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ids.put(resultSet.getInt("pair_key"), resultSet.getLong("id"));
+                }
+            }
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(byCurrencyIdsQuery)) {
+            for (ExchangeRate exchangeRate : exchangeRates) {
+                int pairKey = pairKey(exchangeRate);
+
+                if (pairKey != CurrencyCodes.NO_KEY) {
+                    exchangeRate.setId(ids.get(pairKey));
+                    continue;
+                }
+
+                // only currencies stored before codes were validated can lack a key
+                statement.setLong(1, exchangeRate.getBaseCurrency().getId());
+                statement.setLong(2, exchangeRate.getTargetCurrency().getId());
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    exchangeRate.setId(resultSet.getLong("id"));
+                }
             }
-        } catch (SQLException e) {
-            throw new DatabaseOperationException(
-                    "Failed to update exchange rate with id '" + entity.getId() + "' in the database", e
-            );
         }
-        return Optional.empty();
     }
 
     @Override
@@ -178,17 +326,18 @@ public class JdbcExchangeRateDao implements ExchangeRateDao {
             WHERE id = ?
             """;
 
-        try (Connection connection = DatabaseConnectionManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
+        databaseWriter.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
 
-            statement.setLong(1, id);
-            statement.executeUpdate();
+                statement.setLong(1, id);
+                return statement.executeUpdate();
 
-        } catch (SQLException e) {
-            throw new DatabaseOperationException(
-                    "Failed to delete exchange rate with id '" + id + "' from the database", e
-            );
-        }
+            } catch (SQLException e) {
+                throw new DatabaseOperationException(
+                        "Failed to delete exchange rate with id '" + id + "' from the database", e
+                );
+            }
+        });
     }
 
     @Override
@@ -204,21 +353,29 @@ public class JdbcExchangeRateDao implements ExchangeRateDao {
                 tc.code AS target_code,
                 tc.full_name AS target_name,
                 tc.sign AS target_sign,
-                er.rate AS rate
+                er.rate_unscaled AS rate_unscaled,
+                er.rate_scale AS rate_scale
             FROM Exchange_rates er
             JOIN Currencies bc ON er.base_currency_id = bc.id
             JOIN Currencies tc ON er.target_currency_id = tc.id
-            WHERE bc.code = ? AND tc.code = ?
+            WHERE er.pair_key = ?
             """;
 
-        try (Connection connection = DatabaseConnectionManager.getConnection();
+        int baseKey = CurrencyCodes.key(baseCurrencyCode);
+        int targetKey = CurrencyCodes.key(targetCurrencyCode);
+
+        if (baseKey == CurrencyCodes.NO_KEY || targetKey == CurrencyCodes.NO_KEY) {
+            return Optional.empty();
+        }
+
+        try (Connection connection = connectionManager.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
 
-            statement.setString(1, baseCurrencyCode);
-            statement.setString(2, targetCurrencyCode);
+            statement.setInt(1, codePairKey(baseKey, targetKey));
 
             ResultSet resultSet = statement.executeQuery();
 
+            // one probe of the unique exchange_rates_pair_key, the currencies are then read by id
             if (resultSet.next()) {
                 return Optional.of(getExchangeRate(resultSet));
             }
@@ -231,22 +388,111 @@ public class JdbcExchangeRateDao implements ExchangeRateDao {
         return Optional.empty();
     }
 
+    @Override
+    public void streamHistory(Consumer<? super ExchangeRate> action) {
+        final String query = """
+            SELECT
+                h.id AS id,
+                bc.id AS base_id,
+                bc.code AS base_code,
+                bc.full_name AS base_name,
+                bc.sign AS base_sign,
+                tc.id AS target_id,
+                tc.code AS target_code,
+                tc.full_name AS target_name,
+                tc.sign AS target_sign,
+                h.rate_unscaled AS rate_unscaled,
+                h.rate_scale AS rate_scale,
+                h.valid_from AS valid_from
+            FROM Exchange_rate_history h
+            JOIN Currencies bc ON h.base_currency_id = bc.id
+            JOIN Currencies tc ON h.target_currency_id = tc.id
+            ORDER BY h.valid_from, h.id
+            """;
+
+        try (Connection connection = connectionManager.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+
+            ResultSet resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+                ExchangeRate exchangeRate = getExchangeRate(resultSet);
+                exchangeRate.setValidFrom(resultSet.getLong("valid_from"));
+                action.accept(exchangeRate);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseOperationException(
+                    "Failed to read exchange rate history from the database", e
+            );
+        }
+    }
+
+    /**
+     * Records the new rate in the history table as part of the same write and stamps the entity with its time.
+     */
+    private static void insertHistory(Connection connection, ExchangeRate entity, BigDecimal rate) throws SQLException {
+        final String query = """
+            INSERT INTO Exchange_rate_history (base_currency_id, target_currency_id, rate_unscaled, rate_scale, valid_from)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+        long validFrom = System.currentTimeMillis();
+
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setLong(1, entity.getBaseCurrency().getId());
+            statement.setLong(2, entity.getTargetCurrency().getId());
+            statement.setLong(3, FixedPoint.unscaled(rate));
+            statement.setInt(4, rate.scale());
+            statement.setLong(5, validFrom);
+            statement.executeUpdate();
+        }
+
+        entity.setValidFrom(validFrom);
+    }
+
+    // the pair_key column, computed the same way by the migration and its triggers
+    private static int codePairKey(int baseKey, int targetKey) {
+        return baseKey << 15 | targetKey;
+    }
+
+    // codes that are not three upper-case letters have no key, as in the pair key migration
+    private static int pairKey(ExchangeRate exchangeRate) {
+        int baseKey = exchangeRate.getBaseCurrency().getKey();
+        int targetKey = exchangeRate.getTargetCurrency().getKey();
+
+        if (baseKey == CurrencyCodes.NO_KEY || targetKey == CurrencyCodes.NO_KEY) {
+            return CurrencyCodes.NO_KEY;
+        }
+        return codePairKey(baseKey, targetKey);
+    }
+
+    private static void setPairKey(PreparedStatement statement, int index, ExchangeRate exchangeRate)
+            throws SQLException {
+        int pairKey = pairKey(exchangeRate);
+
+        if (pairKey == CurrencyCodes.NO_KEY) {
+            statement.setNull(index, Types.INTEGER);
+        } else {
+            statement.setInt(index, pairKey);
+        }
+    }
+
     private static ExchangeRate getExchangeRate(ResultSet resultSet) throws SQLException {
         return new ExchangeRate(
                 resultSet.getLong("id"),
-                new Currency(
+                CurrencyFlyweights.get(
                         resultSet.getLong("base_id"),
                         resultSet.getString("base_code"),
                         resultSet.getString("base_name"),
                         resultSet.getString("base_sign")
                 ),
-                new Currency(
+                CurrencyFlyweights.get(
                         resultSet.getLong("target_id"),
                         resultSet.getString("target_code"),
                         resultSet.getString("target_name"),
                         resultSet.getString("target_sign")
                 ),
-                resultSet.getBigDecimal("rate")
+                FixedPoint.toBigDecimal(resultSet.getLong("rate_unscaled"), resultSet.getInt("rate_scale"))
         );
     }
 }
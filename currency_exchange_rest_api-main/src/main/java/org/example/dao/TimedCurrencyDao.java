@@ -0,0 +1,112 @@
+package org.example.dao;
+
+import org.example.entity.Currency;
+import org.example.metrics.Histogram;
+import org.example.metrics.MetricsRegistry;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Records the duration of every call to another {@link CurrencyDao} in {@code dao_query_seconds}, per method.
+ * {@code streamAll} includes the time spent in its action.
+ */
+public class TimedCurrencyDao implements CurrencyDao {
+
+    private final CurrencyDao delegate;
+    private final Histogram findById;
+    private final Histogram findByCode;
+    private final Histogram findAll;
+    private final Histogram streamAll;
+    private final Histogram save;
+    private final Histogram update;
+    private final Histogram delete;
+
+    public TimedCurrencyDao(CurrencyDao delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+
+        String dao = delegate.getClass().getSimpleName();
+        findById = timer(registry, dao, "findById");
+        findByCode = timer(registry, dao, "findByCode");
+        findAll = timer(registry, dao, "findAll");
+        streamAll = timer(registry, dao, "streamAll");
+        save = timer(registry, dao, "save");
+        update = timer(registry, dao, "update");
+        delete = timer(registry, dao, "delete");
+    }
+
+    @Override
+    public Optional<Currency> findById(Long id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findById(id);
+        } finally {
+            findById.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Optional<Currency> findByCode(String code) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findByCode(code);
+        } finally {
+            findByCode.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Currency> findAll() {
+        long start = System.nanoTime();
+        try {
+            return delegate.findAll();
+        } finally {
+            findAll.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void streamAll(long afterId, int limit, Consumer<? super Currency> action) {
+        long start = System.nanoTime();
+        try {
+            delegate.streamAll(afterId, limit, action);
+        } finally {
+            streamAll.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Currency save(Currency entity) {
+        long start = System.nanoTime();
+        try {
+            return delegate.save(entity);
+        } finally {
+            save.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Optional<Currency> update(Currency entity) {
+        long start = System.nanoTime();
+        try {
+            return delegate.update(entity);
+        } finally {
+            update.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        long start = System.nanoTime();
+        try {
+            delegate.delete(id);
+        } finally {
+            delete.record(System.nanoTime() - start);
+        }
+    }
+
+    static Histogram timer(MetricsRegistry registry, String dao, String method) {
+        return registry.histogram("dao_query_seconds", "Duration of DAO calls.", "dao", dao, "method", method);
+    }
+}
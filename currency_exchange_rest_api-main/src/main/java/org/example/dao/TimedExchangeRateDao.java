@@ -0,0 +1,134 @@
+package org.example.dao;
+
+import org.example.entity.ExchangeRate;
+import org.example.metrics.Histogram;
+import org.example.metrics.MetricsRegistry;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.example.dao.TimedCurrencyDao.timer;
+
+/**
+ * Records the duration of every call to another {@link ExchangeRateDao} in {@code dao_query_seconds}, per method.
+ * {@code streamAll} and {@code streamHistory} include the time spent in their action.
+ */
+public class TimedExchangeRateDao implements ExchangeRateDao {
+
+    private final ExchangeRateDao delegate;
+    private final Histogram findById;
+    private final Histogram findByCodes;
+    private final Histogram findAll;
+    private final Histogram streamAll;
+    private final Histogram streamHistory;
+    private final Histogram save;
+    private final Histogram update;
+    private final Histogram upsertAll;
+    private final Histogram delete;
+
+    public TimedExchangeRateDao(ExchangeRateDao delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+
+        String dao = delegate.getClass().getSimpleName();
+        findById = timer(registry, dao, "findById");
+        findByCodes = timer(registry, dao, "findByCodes");
+        findAll = timer(registry, dao, "findAll");
+        streamAll = timer(registry, dao, "streamAll");
+        streamHistory = timer(registry, dao, "streamHistory");
+        save = timer(registry, dao, "save");
+        update = timer(registry, dao, "update");
+        upsertAll = timer(registry, dao, "upsertAll");
+        delete = timer(registry, dao, "delete");
+    }
+
+    @Override
+    public Optional<ExchangeRate> findById(Long id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findById(id);
+        } finally {
+            findById.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Optional<ExchangeRate> findByCodes(String baseCurrencyCode, String targetCurrencyCode) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findByCodes(baseCurrencyCode, targetCurrencyCode);
+        } finally {
+            findByCodes.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<ExchangeRate> findAll() {
+        long start = System.nanoTime();
+        try {
+            return delegate.findAll();
+        } finally {
+            findAll.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void streamAll(long afterId, int limit, Consumer<? super ExchangeRate> action) {
+        long start = System.nanoTime();
+        try {
+            delegate.streamAll(afterId, limit, action);
+        } finally {
+            streamAll.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void streamHistory(Consumer<? super ExchangeRate> action) {
+        long start = System.nanoTime();
+        try {
+            delegate.streamHistory(action);
+        } finally {
+            streamHistory.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public ExchangeRate save(ExchangeRate entity) {
+        long start = System.nanoTime();
+        try {
+            return delegate.save(entity);
+        } finally {
+            save.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Optional<ExchangeRate> update(ExchangeRate entity) {
+        long start = System.nanoTime();
+        try {
+            return delegate.update(entity);
+        } finally {
+            update.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void upsertAll(List<ExchangeRate> exchangeRates) {
+        long start = System.nanoTime();
+        try {
+            delegate.upsertAll(exchangeRates);
+        } finally {
+            upsertAll.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        long start = System.nanoTime();
+        try {
+            delegate.delete(id);
+        } finally {
+            delete.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+
+public record ExchangeBatchItemDto(
+        String from,
+        String to,
+        BigDecimal amount
+) {}
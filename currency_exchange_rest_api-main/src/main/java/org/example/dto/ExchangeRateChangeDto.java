@@ -0,0 +1,10 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+
+public record ExchangeRateChangeDto(
+        String baseCurrencyCode,
+        String targetCurrencyCode,
+        BigDecimal rate,
+        String validFrom
+) {}
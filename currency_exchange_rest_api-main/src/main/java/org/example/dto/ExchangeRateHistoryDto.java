@@ -0,0 +1,8 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+
+public record ExchangeRateHistoryDto(
+        String validFrom,
+        BigDecimal rate
+) {}
@@ -1,12 +1,13 @@
 package org.example.dto;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 public record ExchangeResponseDto(
         CurrencyResponseDto baseCurrency,
         CurrencyResponseDto targetCurrency,
         BigDecimal rate,
         BigDecimal amount,
-        BigDecimal convertedAmount
+        BigDecimal convertedAmount,
+        List<String> path
 ) {}
-
@@ -0,0 +1,20 @@
+package org.example.dto;
+
+import java.util.List;
+
+public record SlowQueryDto(
+        String time,
+        String pool,
+        String sql,
+        List<Object> parameters,
+        int batchSize,
+        long rows,
+        int busyRetries,
+        double connectionWaitMs,
+        double prepareMs,
+        double executeMs,
+        double fetchMs,
+        double totalMs,
+        String thread,
+        String requestId
+) {}
@@ -1,13 +1,16 @@
 package org.example.entity;
 
-public class Currency {
+import org.example.utils.CurrencyCodes;
 
-    private Long id;
-    private String code;
-    private String fullName;
-    private String sign;
+/**
+ * Immutable, so the DAOs can hand out one shared instance per currency.
+ */
+public class Currency {
 
-    public Currency() {}
+    private final Long id;
+    private final String code;
+    private final String fullName;
+    private final String sign;
 
     public Currency(Long id, String code, String fullName, String sign) {
         this.id = id;
@@ -17,20 +20,19 @@ public class Currency {
     }
 
     public Currency(String code, String fullName, String sign) {
-        this.code = code;
-        this.fullName = fullName;
-        this.sign = sign;
+        this(null, code, fullName, sign);
     }
 
     public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
 
     public String getCode() { return code; }
-    public void setCode(String code) { this.code = code; }
 
     public String getFullName() { return fullName; }
-    public void setFullName(String fullName) { this.fullName = fullName; }
 
     public String getSign() { return sign; }
-    public void setSign(String sign) { this.sign = sign; }
+
+    /**
+     * The 15-bit packed code, see {@link CurrencyCodes}.
+     */
+    public int getKey() { return CurrencyCodes.key(code); }
 }
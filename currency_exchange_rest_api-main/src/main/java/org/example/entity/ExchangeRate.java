@@ -8,6 +8,8 @@ public class ExchangeRate {
     private Currency baseCurrency;
     private Currency targetCurrency;
     private BigDecimal rate;
+    // epoch milliseconds from which the rate applies, set when it is written
+    private Long validFrom;
 
     public ExchangeRate() {
     }
@@ -56,4 +58,12 @@ public class ExchangeRate {
     public void setRate(BigDecimal rate) {
         this.rate = rate;
     }
+
+    public Long getValidFrom() {
+        return validFrom;
+    }
+
+    public void setValidFrom(Long validFrom) {
+        this.validFrom = validFrom;
+    }
 }
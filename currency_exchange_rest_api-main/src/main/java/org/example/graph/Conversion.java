@@ -0,0 +1,20 @@
+package org.example.graph;
+
+import org.example.entity.Currency;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * The best conversion between two currencies. {@code unscaledRate} and {@code rateScale} hold {@code rate}
+ * as a scaled {@code long} for {@link org.example.utils.FixedPoint} arithmetic, {@code rateScale} is negative
+ * when the rate does not fit in one.
+ */
+public record Conversion(
+        Currency baseCurrency,
+        Currency targetCurrency,
+        BigDecimal rate,
+        long unscaledRate,
+        int rateScale,
+        List<Currency> path
+) {}
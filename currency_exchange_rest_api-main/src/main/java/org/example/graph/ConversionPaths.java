@@ -0,0 +1,380 @@
+package org.example.graph;
+
+import org.example.utils.FixedPoint;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * All-pairs conversion paths over the rate graph.
+ * <p>
+ * Every stored rate {@code base -> target} is an edge that can be walked directly or, when the opposite
+ * rate is missing, inverted. Paths are ranked by hop count first and by the number of inversions second,
+ * so a shorter path always wins and among equally short ones the path with fewer divisions wins.
+ * Remaining ties go to the first hop with the lowest index, so the chosen path depends only on the rates and not
+ * on the order they were added in.
+ * {@code next} holds the first hop of the best path for every pair, {@code effectiveRates} the resulting rate
+ * and {@code matrix} the same rate as a dense {@code double} matrix ({@code NaN} when there is no path).
+ * <p>
+ * Stored rates come in as scaled {@code long}s, see {@link RateGraph}. Effective rates are computed exactly with
+ * {@link FixedPoint} and rounded once to {@link #SCALE} places; only paths whose product overflows a {@code long}
+ * fall back to {@link BigDecimal}. They are kept both as {@link BigDecimal} for responses and as scaled
+ * {@code long}s for conversions ({@link RateGraph#NO_RATE} as scale when the rate does not fit).
+ */
+final class ConversionPaths {
+
+    static final int SCALE = 6;
+
+    private static final int DIRECT_COST = 1024;
+    private static final int INVERSE_COST = DIRECT_COST + 1;
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE / 2;
+    private static final ConversionPaths EMPTY = new ConversionPaths(
+            0, new int[0], new int[0], new BigDecimal[0], new long[0], new byte[0], new double[0]
+    );
+
+    private final int size;
+    private final int[] costs;
+    private final int[] next;
+    private final BigDecimal[] effectiveRates;
+    private final long[] effectiveUnscaled;
+    private final byte[] effectiveScales;
+    private final double[] matrix;
+
+    private ConversionPaths(int size, int[] costs, int[] next, BigDecimal[] effectiveRates,
+                            long[] effectiveUnscaled, byte[] effectiveScales, double[] matrix) {
+        this.size = size;
+        this.costs = costs;
+        this.next = next;
+        this.effectiveRates = effectiveRates;
+        this.effectiveUnscaled = effectiveUnscaled;
+        this.effectiveScales = effectiveScales;
+        this.matrix = matrix;
+    }
+
+    static ConversionPaths empty() {
+        return EMPTY;
+    }
+
+    static ConversionPaths build(int size, long[] rates, byte[] scales) {
+        int[] costs = new int[size * size];
+        int[] next = new int[size * size];
+
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                costs[from * size + to] = from == to ? 0 : edgeCost(size, rates, scales, from, to);
+            }
+        }
+
+        for (int via = 0; via < size; via++) {
+            for (int from = 0; from < size; from++) {
+                int toVia = costs[from * size + via];
+                if (toVia >= UNREACHABLE) {
+                    continue;
+                }
+                for (int to = 0; to < size; to++) {
+                    int cost = toVia + costs[via * size + to];
+                    int cell = from * size + to;
+                    if (cost < costs[cell]) {
+                        costs[cell] = cost;
+                    }
+                }
+            }
+        }
+
+        double[] matrix = new double[size * size];
+        Arrays.fill(matrix, Double.NaN);
+
+        byte[] effectiveScales = new byte[size * size];
+        Arrays.fill(effectiveScales, RateGraph.NO_RATE);
+
+        ConversionPaths paths = new ConversionPaths(
+                size, costs, next, new BigDecimal[size * size], new long[size * size], effectiveScales, matrix
+        );
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                paths.setNext(rates, scales, from, to);
+            }
+        }
+        paths.computeEffectiveRates(rates, scales);
+        return paths;
+    }
+
+    /**
+     * Returns paths for a graph of {@code newSize} currencies in which the rate between
+     * {@code base} and {@code target} has been added or changed.
+     * Adding an edge can only shorten paths, so only the pairs that go through it are relaxed. Only pairs with a
+     * best path over the edge afterwards can have a different path or rate, the others are left as they are.
+     */
+    ConversionPaths withEdge(int newSize, long[] rates, byte[] scales, int base, int target) {
+        if (rates[base * newSize + target] == 0) {
+            // a zero rate can no longer be inverted, which may lengthen existing paths
+            return build(newSize, rates, scales);
+        }
+
+        ConversionPaths paths = resize(newSize);
+
+        paths.relax(rates, scales, base, target);
+        paths.relax(rates, scales, target, base);
+        paths.update(rates, scales, base, target);
+
+        return paths;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int next(int from, int to) {
+        return next[from * size + to];
+    }
+
+    BigDecimal effectiveRate(int from, int to) {
+        return effectiveRates[from * size + to];
+    }
+
+    long effectiveUnscaled(int from, int to) {
+        return effectiveUnscaled[from * size + to];
+    }
+
+    int effectiveScale(int from, int to) {
+        return effectiveScales[from * size + to];
+    }
+
+    double matrixRate(int from, int to) {
+        return matrix[from * size + to];
+    }
+
+    private ConversionPaths resize(int newSize) {
+        int[] newCosts = new int[newSize * newSize];
+        int[] newNext = new int[newSize * newSize];
+        BigDecimal[] newEffectiveRates = new BigDecimal[newSize * newSize];
+        long[] newEffectiveUnscaled = new long[newSize * newSize];
+        byte[] newEffectiveScales = new byte[newSize * newSize];
+        double[] newMatrix = new double[newSize * newSize];
+        Arrays.fill(newCosts, UNREACHABLE);
+        Arrays.fill(newNext, -1);
+        Arrays.fill(newEffectiveScales, RateGraph.NO_RATE);
+        Arrays.fill(newMatrix, Double.NaN);
+
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(costs, row * size, newCosts, row * newSize, size);
+            System.arraycopy(next, row * size, newNext, row * newSize, size);
+            System.arraycopy(effectiveRates, row * size, newEffectiveRates, row * newSize, size);
+            System.arraycopy(effectiveUnscaled, row * size, newEffectiveUnscaled, row * newSize, size);
+            System.arraycopy(effectiveScales, row * size, newEffectiveScales, row * newSize, size);
+            System.arraycopy(matrix, row * size, newMatrix, row * newSize, size);
+        }
+        for (int i = size; i < newSize; i++) {
+            newCosts[i * newSize + i] = 0;
+            newNext[i * newSize + i] = i;
+            newMatrix[i * newSize + i] = 1.0;
+        }
+
+        return new ConversionPaths(
+                newSize, newCosts, newNext, newEffectiveRates, newEffectiveUnscaled, newEffectiveScales, newMatrix
+        );
+    }
+
+    private void relax(long[] rates, byte[] scales, int from, int to) {
+        int edgeCost = edgeCost(size, rates, scales, from, to);
+
+        if (edgeCost >= UNREACHABLE) {
+            return;
+        }
+
+        for (int source = 0; source < size; source++) {
+            int toFrom = costs[source * size + from];
+            if (toFrom >= UNREACHABLE) {
+                continue;
+            }
+
+            for (int destination = 0; destination < size; destination++) {
+                int fromTo = costs[to * size + destination];
+                if (fromTo >= UNREACHABLE) {
+                    continue;
+                }
+                int cost = toFrom + edgeCost + fromTo;
+                int cell = source * size + destination;
+                if (cost < costs[cell]) {
+                    costs[cell] = cost;
+                }
+            }
+        }
+    }
+
+    private void computeEffectiveRates(long[] rates, byte[] scales) {
+        for (int from = 0; from < size; from++) {
+            matrix[from * size + from] = 1.0;
+
+            for (int to = 0; to < size; to++) {
+                if (from != to && next[from * size + to] >= 0) {
+                    walk(rates, scales, from, to);
+                }
+            }
+        }
+    }
+
+    private void update(long[] rates, byte[] scales, int base, int target) {
+        boolean[] affected = new boolean[size * size];
+        int forward = edgeCost(size, rates, scales, base, target);
+        int backward = edgeCost(size, rates, scales, target, base);
+
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                if (from != to && (usesEdge(from, to, base, target, forward)
+                        || usesEdge(from, to, target, base, backward))) {
+                    affected[from * size + to] = true;
+                    setNext(rates, scales, from, to);
+                }
+            }
+        }
+
+        // a path is walked through the next hops of other pairs, so all of them must be set first
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                if (affected[from * size + to]) {
+                    walk(rates, scales, from, to);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells whether one of the best paths between {@code from} and {@code to} walks the edge {@code a -> b}
+     * costing {@code edgeCost}. Any pair whose cost or set of best paths changed because of a new edge has one.
+     */
+    private boolean usesEdge(int from, int to, int a, int b, int edgeCost) {
+        int cost = costs[from * size + to];
+        int toA = costs[from * size + a];
+        int fromB = costs[b * size + to];
+
+        return cost < UNREACHABLE && toA < UNREACHABLE && fromB < UNREACHABLE && edgeCost < UNREACHABLE
+                && toA + edgeCost + fromB == cost;
+    }
+
+    /**
+     * Sets the first hop from {@code from} to {@code to} to the lowest index on one of the best paths, once the
+     * costs are final.
+     */
+    private void setNext(long[] rates, byte[] scales, int from, int to) {
+        int cell = from * size + to;
+
+        if (from == to) {
+            next[cell] = from;
+            return;
+        }
+
+        next[cell] = -1;
+
+        if (costs[cell] >= UNREACHABLE) {
+            return;
+        }
+
+        for (int hop = 0; hop < size; hop++) {
+            int rest = costs[hop * size + to];
+
+            // every edge costs at least DIRECT_COST, so a hop further than that from the target is not on a best path
+            if (hop != from && rest <= costs[cell] - DIRECT_COST
+                    && edgeCost(size, rates, scales, from, hop) + rest == costs[cell]) {
+                next[cell] = hop;
+                return;
+            }
+        }
+    }
+
+    private void setEffectiveRate(int from, int to, long unscaled, int scale) {
+        int cell = from * size + to;
+        effectiveRates[cell] = FixedPoint.toBigDecimal(unscaled, scale);
+        effectiveUnscaled[cell] = unscaled;
+        effectiveScales[cell] = (byte) scale;
+        matrix[cell] = effectiveRates[cell].doubleValue();
+    }
+
+    private void setEffectiveRate(int from, int to, BigDecimal rate) {
+        int cell = from * size + to;
+        effectiveRates[cell] = rate;
+        matrix[cell] = rate.doubleValue();
+
+        try {
+            effectiveUnscaled[cell] = FixedPoint.unscaled(rate);
+            effectiveScales[cell] = (byte) rate.scale();
+        } catch (ArithmeticException e) {
+            effectiveScales[cell] = RateGraph.NO_RATE;
+        }
+    }
+
+    /**
+     * Multiplies the rates along the path, collecting inverted edges into a single divisor
+     * so a path needs at most one division. A single direct edge keeps the stored rate as is.
+     */
+    private void walk(long[] rates, byte[] scales, int from, int to) {
+        long numerator = 1;
+        long denominator = 1;
+        int numeratorScale = 0;
+        int denominatorScale = 0;
+        boolean inverted = false;
+        int hops = 0;
+
+        try {
+            for (int current = from; current != to; hops++) {
+                int following = next[current * size + to];
+                int edge = current * size + following;
+
+                if (scales[edge] != RateGraph.NO_RATE) {
+                    numerator = Math.multiplyExact(numerator, rates[edge]);
+                    numeratorScale += scales[edge];
+                } else {
+                    int opposite = following * size + current;
+                    denominator = Math.multiplyExact(denominator, rates[opposite]);
+                    denominatorScale += scales[opposite];
+                    inverted = true;
+                }
+                current = following;
+            }
+
+            if (hops == 1 && !inverted) {
+                setEffectiveRate(from, to, numerator, numeratorScale);
+            } else {
+                setEffectiveRate(from, to,
+                        FixedPoint.divide(numerator, numeratorScale, denominator, denominatorScale, SCALE), SCALE);
+            }
+        } catch (ArithmeticException e) {
+            setEffectiveRate(from, to, walkExact(rates, scales, from, to));
+        }
+    }
+
+    private BigDecimal walkExact(long[] rates, byte[] scales, int from, int to) {
+        BigDecimal numerator = BigDecimal.ONE;
+        BigDecimal denominator = BigDecimal.ONE;
+
+        for (int current = from; current != to; ) {
+            int following = next[current * size + to];
+            int edge = current * size + following;
+
+            if (scales[edge] != RateGraph.NO_RATE) {
+                numerator = numerator.multiply(FixedPoint.toBigDecimal(rates[edge], scales[edge]));
+            } else {
+                int opposite = following * size + current;
+                denominator = denominator.multiply(FixedPoint.toBigDecimal(rates[opposite], scales[opposite]));
+            }
+            current = following;
+        }
+
+        return numerator.divide(denominator, SCALE, RoundingMode.HALF_EVEN);
+    }
+
+    private static int edgeCost(int size, long[] rates, byte[] scales, int from, int to) {
+        if (scales[from * size + to] != RateGraph.NO_RATE) {
+            return DIRECT_COST;
+        }
+
+        int opposite = to * size + from;
+
+        if (scales[opposite] != RateGraph.NO_RATE && rates[opposite] != 0) {
+            return INVERSE_COST;
+        }
+        return UNREACHABLE;
+    }
+}
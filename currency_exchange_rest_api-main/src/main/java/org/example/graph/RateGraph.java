@@ -0,0 +1,269 @@
+package org.example.graph;
+
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.example.utils.CurrencyCodes;
+import org.example.utils.FixedPoint;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable snapshot of all currencies and exchange rates.
+ * Currencies get a dense index, rates are kept in n*n arrays addressed by {@code base * n + target}
+ * as an unscaled {@code long} and a scale, {@link #NO_RATE} marking pairs without a stored rate.
+ * Codes map to that index through a table addressed by their {@link CurrencyCodes} key,
+ * currencies whose code has no key are left out.
+ */
+public final class RateGraph {
+
+    static final byte NO_RATE = -1;
+
+    private static final RateGraph EMPTY = new RateGraph(
+            new Currency[0], new int[0], emptyIndexByKey(), new long[0], new long[0], new byte[0], ConversionPaths.empty()
+    );
+
+    private final Currency[] currencies;
+    private final int[] indexById;
+    // at most 26^3 currencies have a key, so every index fits in a short
+    private final short[] indexByKey;
+    private final long[] rateIds;
+    private final long[] rates;
+    private final byte[] rateScales;
+    private final ConversionPaths paths;
+
+    private RateGraph(Currency[] currencies, int[] indexById, short[] indexByKey,
+                      long[] rateIds, long[] rates, byte[] rateScales, ConversionPaths paths) {
+        this.currencies = currencies;
+        this.indexById = indexById;
+        this.indexByKey = indexByKey;
+        this.rateIds = rateIds;
+        this.rates = rates;
+        this.rateScales = rateScales;
+        this.paths = paths;
+    }
+
+    public static RateGraph empty() {
+        return EMPTY;
+    }
+
+    private static short[] emptyIndexByKey() {
+        short[] indexByKey = new short[CurrencyCodes.KEY_SPACE];
+        Arrays.fill(indexByKey, (short) -1);
+        return indexByKey;
+    }
+
+    public static RateGraph build(List<Currency> currencies, List<ExchangeRate> exchangeRates) {
+        Currency[] currencyArray = currencies.stream()
+                .filter(currency -> currency.getKey() != CurrencyCodes.NO_KEY)
+                .toArray(Currency[]::new);
+        int size = currencyArray.length;
+        short[] indexByKey = emptyIndexByKey();
+        long maxId = -1;
+
+        for (int i = 0; i < size; i++) {
+            indexByKey[currencyArray[i].getKey()] = (short) i;
+            maxId = Math.max(maxId, currencyArray[i].getId());
+        }
+
+        int[] indexById = new int[Math.toIntExact(maxId + 1)];
+        Arrays.fill(indexById, -1);
+
+        for (int i = 0; i < size; i++) {
+            indexById[Math.toIntExact(currencyArray[i].getId())] = i;
+        }
+
+        long[] rateIds = new long[size * size];
+        long[] rates = new long[size * size];
+        byte[] rateScales = new byte[size * size];
+        Arrays.fill(rateScales, NO_RATE);
+        RateGraph graph = new RateGraph(
+                currencyArray, indexById, indexByKey, rateIds, rates, rateScales, ConversionPaths.empty()
+        );
+
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            int base = graph.indexOf(exchangeRate.getBaseCurrency());
+            int target = graph.indexOf(exchangeRate.getTargetCurrency());
+
+            if (base < 0 || target < 0) {
+                continue;
+            }
+
+            rateIds[base * size + target] = exchangeRate.getId();
+            setRate(rates, rateScales, base * size + target, exchangeRate.getRate());
+        }
+
+        return new RateGraph(
+                currencyArray, indexById, indexByKey, rateIds, rates, rateScales,
+                ConversionPaths.build(size, rates, rateScales)
+        );
+    }
+
+    private static void setRate(long[] rates, byte[] rateScales, int cell, BigDecimal rate) {
+        BigDecimal normalized = FixedPoint.normalize(rate);
+        rates[cell] = FixedPoint.unscaled(normalized);
+        rateScales[cell] = (byte) normalized.scale();
+    }
+
+    /**
+     * Returns a copy of this graph with the given rate added or replaced.
+     * Currencies referenced by the rate are added when missing.
+     */
+    public RateGraph withRate(ExchangeRate exchangeRate) {
+        RateGraph graph = withCurrency(exchangeRate.getBaseCurrency())
+                .withCurrency(exchangeRate.getTargetCurrency());
+
+        int size = graph.size();
+        int base = graph.indexOf(exchangeRate.getBaseCurrency());
+        int target = graph.indexOf(exchangeRate.getTargetCurrency());
+
+        if (base < 0 || target < 0) {
+            return this;
+        }
+
+        long[] rateIds = graph.rateIds == this.rateIds ? this.rateIds.clone() : graph.rateIds;
+        long[] rates = graph.rates == this.rates ? this.rates.clone() : graph.rates;
+        byte[] rateScales = graph.rateScales == this.rateScales ? this.rateScales.clone() : graph.rateScales;
+
+        if (exchangeRate.getId() != null) {
+            rateIds[base * size + target] = exchangeRate.getId();
+        }
+        setRate(rates, rateScales, base * size + target, exchangeRate.getRate());
+
+        return new RateGraph(
+                graph.currencies, graph.indexById, graph.indexByKey, rateIds, rates, rateScales,
+                paths.withEdge(size, rates, rateScales, base, target)
+        );
+    }
+
+    private RateGraph withCurrency(Currency currency) {
+        int key = currency.getKey();
+
+        if (key == CurrencyCodes.NO_KEY || indexByKey[key] >= 0) {
+            return this;
+        }
+
+        int size = size();
+        int newSize = size + 1;
+        int id = Math.toIntExact(currency.getId());
+
+        Currency[] newCurrencies = Arrays.copyOf(currencies, newSize);
+        newCurrencies[size] = currency;
+
+        int[] newIndexById = Arrays.copyOf(indexById, Math.max(indexById.length, id + 1));
+        Arrays.fill(newIndexById, indexById.length, newIndexById.length, -1);
+        newIndexById[id] = size;
+
+        short[] newIndexByKey = indexByKey.clone();
+        newIndexByKey[key] = (short) size;
+
+        long[] newRateIds = new long[newSize * newSize];
+        long[] newRates = new long[newSize * newSize];
+        byte[] newRateScales = new byte[newSize * newSize];
+        Arrays.fill(newRateScales, NO_RATE);
+
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(rateIds, row * size, newRateIds, row * newSize, size);
+            System.arraycopy(rates, row * size, newRates, row * newSize, size);
+            System.arraycopy(rateScales, row * size, newRateScales, row * newSize, size);
+        }
+
+        return new RateGraph(newCurrencies, newIndexById, newIndexByKey, newRateIds, newRates, newRateScales, paths);
+    }
+
+    public int size() {
+        return currencies.length;
+    }
+
+    public int indexOf(String code) {
+        int key = CurrencyCodes.key(code);
+        return key != CurrencyCodes.NO_KEY ? indexByKey[key] : -1;
+    }
+
+    public int indexOf(Currency currency) {
+        long id = currency.getId();
+        return id < indexById.length ? indexById[(int) id] : -1;
+    }
+
+    public Currency currency(int index) {
+        return currencies[index];
+    }
+
+    boolean hasRate(int cell) {
+        return rateScales[cell] != NO_RATE;
+    }
+
+    long rateId(int cell) {
+        return rateIds[cell];
+    }
+
+    long unscaledRate(int cell) {
+        return rates[cell];
+    }
+
+    byte rateScale(int cell) {
+        return rateScales[cell];
+    }
+
+    public Optional<ExchangeRate> findRate(String baseCurrencyCode, String targetCurrencyCode) {
+        int base = indexOf(baseCurrencyCode);
+        int target = indexOf(targetCurrencyCode);
+
+        if (base < 0 || target < 0) {
+            return Optional.empty();
+        }
+
+        int cell = base * size() + target;
+
+        if (rateScales[cell] == NO_RATE) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new ExchangeRate(
+                rateIds[cell], currencies[base], currencies[target], FixedPoint.toBigDecimal(rates[cell], rateScales[cell])
+        ));
+    }
+
+    /**
+     * Returns the effective rate of the best conversion path as a {@code double},
+     * {@code 1.0} on the diagonal and {@code NaN} when the currencies are not connected.
+     */
+    public double matrixRate(int baseIndex, int targetIndex) {
+        return paths.matrixRate(baseIndex, targetIndex);
+    }
+
+    /**
+     * Finds the best conversion from {@code base} to {@code target} over any number of hops.
+     * The rate is precomputed, only the path is materialized on lookup.
+     */
+    public Optional<Conversion> findConversion(String baseCurrencyCode, String targetCurrencyCode) {
+        int base = indexOf(baseCurrencyCode);
+        int target = indexOf(targetCurrencyCode);
+
+        if (base < 0 || target < 0 || base == target) {
+            return Optional.empty();
+        }
+
+        BigDecimal rate = paths.effectiveRate(base, target);
+
+        if (rate == null) {
+            return Optional.empty();
+        }
+
+        List<Currency> path = new ArrayList<>();
+        path.add(currencies[base]);
+
+        for (int current = base; current != target; ) {
+            current = paths.next(current, target);
+            path.add(currencies[current]);
+        }
+
+        return Optional.of(new Conversion(
+                currencies[base], currencies[target], rate,
+                paths.effectiveUnscaled(base, target), paths.effectiveScale(base, target), path
+        ));
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.graph;
+
+import org.example.dao.CurrencyDao;
+import org.example.dao.ExchangeRateDao;
+import org.example.entity.ExchangeRate;
+import org.example.log.Logger;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the current {@link RateGraph} snapshot.
+ * Readers never block, writers hand their changes to a single background thread
+ * that builds the next snapshot and publishes it with a volatile write.
+ * The same thread appends every change to the {@link RateHistory}, which is loaded on first use.
+ * <p>
+ * An update that fails, e.g. because the database could not be read, would leave the graph stale until some later
+ * change, so it is logged and followed by a full reload, retried with a growing delay until it succeeds.
+ */
+public class RateGraphEngine {
+
+    private static final Logger log = Logger.get(RateGraphEngine.class);
+
+    private static final long MIN_RETRY_DELAY_MS = 1000;
+    private static final long MAX_RETRY_DELAY_MS = 60_000;
+
+    private final CurrencyDao currencyDao;
+    private final ExchangeRateDao exchangeRateDao;
+    private final ScheduledExecutorService updater = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rate-graph-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile RateGraph snapshot;
+    private volatile RateHistory history;
+    // only touched on the updater thread
+    private boolean retryScheduled;
+
+    public RateGraphEngine(CurrencyDao currencyDao, ExchangeRateDao exchangeRateDao) {
+        this.currencyDao = currencyDao;
+        this.exchangeRateDao = exchangeRateDao;
+    }
+
+    public RateGraph snapshot() {
+        RateGraph current = snapshot;
+
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = load();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public RateHistory history() {
+        RateHistory current = history;
+
+        if (current == null) {
+            synchronized (this) {
+                current = history;
+                if (current == null) {
+                    current = loadHistory();
+                    history = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public void onRateChanged(ExchangeRate exchangeRate) {
+        update("rate changed", () -> {
+            snapshot = snapshot().withRate(exchangeRate);
+
+            if (exchangeRate.getValidFrom() != null) {
+                history().append(exchangeRate);
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the graph once for a whole set of changed rates instead of once per rate.
+     */
+    public void onRatesChanged(List<ExchangeRate> exchangeRates) {
+        update("rates changed", () -> {
+            snapshot = load();
+
+            RateHistory current = history();
+            for (ExchangeRate exchangeRate : exchangeRates) {
+                if (exchangeRate.getValidFrom() != null) {
+                    current.append(exchangeRate);
+                }
+            }
+        });
+    }
+
+    /**
+     * Serves {@code graph} right away, e.g. one read from a {@link RateSnapshot}, and replaces it
+     * with the graph loaded from the database once that is done in the background.
+     */
+    public void warmStart(RateGraph graph) {
+        snapshot = graph;
+        update("warm start", () -> snapshot = load());
+    }
+
+    public void reload() {
+        update("reload", this::reloadNow);
+    }
+
+    public void shutdown() {
+        updater.shutdownNow();
+    }
+
+    private void update(String task, Runnable update) {
+        updater.execute(() -> {
+            try {
+                update.run();
+            } catch (RuntimeException e) {
+                log.error("Failed to update the rate graph, reloading it", "task", task, e);
+                scheduleRetry(MIN_RETRY_DELAY_MS);
+            }
+        });
+    }
+
+    private void scheduleRetry(long delayMs) {
+        if (retryScheduled || updater.isShutdown()) {
+            return;
+        }
+        retryScheduled = true;
+
+        updater.schedule(() -> {
+            retryScheduled = false;
+
+            try {
+                reloadNow();
+                log.info("Reloaded the rate graph after a failed update");
+            } catch (RuntimeException e) {
+                long nextDelayMs = Math.min(delayMs * 2, MAX_RETRY_DELAY_MS);
+                log.error("Failed to reload the rate graph, retrying", "delayMs", nextDelayMs, e);
+                scheduleRetry(nextDelayMs);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void reloadNow() {
+        snapshot = load();
+
+        // a failed update may have missed an append too
+        if (history != null) {
+            history = loadHistory();
+        }
+    }
+
+    private RateGraph load() {
+        return RateGraph.build(currencyDao.findAll(), exchangeRateDao.findAll());
+    }
+
+    private RateHistory loadHistory() {
+        RateHistory loaded = new RateHistory();
+        exchangeRateDao.streamHistory(loaded::append);
+        return loaded;
+    }
+}
@@ -0,0 +1,237 @@
+package org.example.graph;
+
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.example.utils.CurrencyCodes;
+import org.example.utils.FixedPoint;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Every rate each stored pair has had, as a time series per pair.
+ * <p>
+ * A {@link Series} is three parallel primitive arrays sorted by the instant the rate took effect and searched
+ * with a binary search. Appends are serialized; they write past the end of the arrays and then publish a longer
+ * view, so readers holding an older view are never affected and never lock.
+ */
+public final class RateHistory {
+
+    private final ConcurrentMap<Integer, Series> series = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a rate that took effect at {@link ExchangeRate#getValidFrom()}.
+     * Rates without a time or between currencies without a {@link CurrencyCodes} key are ignored.
+     */
+    public synchronized void append(ExchangeRate exchangeRate) {
+        int baseKey = exchangeRate.getBaseCurrency().getKey();
+        int targetKey = exchangeRate.getTargetCurrency().getKey();
+
+        if (exchangeRate.getValidFrom() == null || baseKey == CurrencyCodes.NO_KEY || targetKey == CurrencyCodes.NO_KEY) {
+            return;
+        }
+
+        BigDecimal rate = FixedPoint.normalize(exchangeRate.getRate());
+        int pair = pairKey(baseKey, targetKey);
+        Series current = series.getOrDefault(pair, Series.EMPTY);
+
+        series.put(pair, current.append(exchangeRate.getValidFrom(), FixedPoint.unscaled(rate), (byte) rate.scale()));
+    }
+
+    public Optional<Series> find(String baseCurrencyCode, String targetCurrencyCode) {
+        int baseKey = CurrencyCodes.key(baseCurrencyCode);
+        int targetKey = CurrencyCodes.key(targetCurrencyCode);
+
+        if (baseKey == CurrencyCodes.NO_KEY || targetKey == CurrencyCodes.NO_KEY) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(series.get(pairKey(baseKey, targetKey)));
+    }
+
+    /**
+     * Reprices {@code conversion} with the rates that were in effect at {@code at}, following the same path.
+     * Each hop uses the stored rate in its direction when there was one at that time and the inverted opposite
+     * rate otherwise. Returns empty when some hop had no rate yet.
+     */
+    public Optional<Conversion> findConversion(Conversion conversion, long at) {
+        List<Currency> path = conversion.path();
+        int hops = path.size() - 1;
+        Series[] edges = new Series[hops];
+        int[] indices = new int[hops];
+        boolean[] inverse = new boolean[hops];
+
+        for (int i = 0; i < hops; i++) {
+            int from = path.get(i).getKey();
+            int to = path.get(i + 1).getKey();
+
+            edges[i] = series.get(pairKey(from, to));
+            indices[i] = edges[i] != null ? edges[i].indexAt(at) : -1;
+
+            if (indices[i] < 0) {
+                edges[i] = series.get(pairKey(to, from));
+                indices[i] = edges[i] != null ? edges[i].indexAt(at) : -1;
+                inverse[i] = true;
+
+                if (indices[i] < 0 || edges[i].unscaled[indices[i]] == 0) {
+                    return Optional.empty();
+                }
+            }
+        }
+
+        if (hops == 1 && !inverse[0]) {
+            Series direct = edges[0];
+            int index = indices[0];
+            return Optional.of(withRate(conversion, direct.unscaled[index], direct.scales[index]));
+        }
+
+        try {
+            long numerator = 1;
+            long denominator = 1;
+            int numeratorScale = 0;
+            int denominatorScale = 0;
+
+            for (int i = 0; i < hops; i++) {
+                if (inverse[i]) {
+                    denominator = Math.multiplyExact(denominator, edges[i].unscaled[indices[i]]);
+                    denominatorScale += edges[i].scales[indices[i]];
+                } else {
+                    numerator = Math.multiplyExact(numerator, edges[i].unscaled[indices[i]]);
+                    numeratorScale += edges[i].scales[indices[i]];
+                }
+            }
+
+            long rate = FixedPoint.divide(numerator, numeratorScale, denominator, denominatorScale, ConversionPaths.SCALE);
+            return Optional.of(withRate(conversion, rate, ConversionPaths.SCALE));
+        } catch (ArithmeticException ignored) {
+            // the product overflowed, redo it in BigDecimal
+        }
+
+        BigDecimal numerator = BigDecimal.ONE;
+        BigDecimal denominator = BigDecimal.ONE;
+
+        for (int i = 0; i < hops; i++) {
+            if (inverse[i]) {
+                denominator = denominator.multiply(edges[i].rate(indices[i]));
+            } else {
+                numerator = numerator.multiply(edges[i].rate(indices[i]));
+            }
+        }
+
+        BigDecimal rate = numerator.divide(denominator, ConversionPaths.SCALE, RoundingMode.HALF_EVEN);
+        return Optional.of(new Conversion(
+                conversion.baseCurrency(), conversion.targetCurrency(), rate, 0, RateGraph.NO_RATE, conversion.path()
+        ));
+    }
+
+    private static Conversion withRate(Conversion conversion, long unscaled, int scale) {
+        return new Conversion(
+                conversion.baseCurrency(), conversion.targetCurrency(), FixedPoint.toBigDecimal(unscaled, scale),
+                unscaled, scale, conversion.path()
+        );
+    }
+
+    private static int pairKey(int baseKey, int targetKey) {
+        return baseKey << 15 | targetKey;
+    }
+
+    /**
+     * The rates of one pair ordered by {@code validFrom}. Instances are immutable views:
+     * an append returns a new, longer view over the same arrays whenever it can.
+     */
+    public static final class Series {
+
+        private static final Series EMPTY = new Series(new long[0], new long[0], new byte[0], 0);
+
+        private final long[] validFrom;
+        private final long[] unscaled;
+        private final byte[] scales;
+        private final int size;
+
+        private Series(long[] validFrom, long[] unscaled, byte[] scales, int size) {
+            this.validFrom = validFrom;
+            this.unscaled = unscaled;
+            this.scales = scales;
+            this.size = size;
+        }
+
+        private Series append(long time, long rateUnscaled, byte rateScale) {
+            int position = size;
+
+            // the same write seen twice, once while loading and once as a change
+            for (int i = size - 1; i >= 0 && validFrom[i] >= time; i--) {
+                if (validFrom[i] == time && unscaled[i] == rateUnscaled && scales[i] == rateScale) {
+                    return this;
+                }
+            }
+
+            // a late write goes before the entries that are newer than it
+            while (position > 0 && validFrom[position - 1] > time) {
+                position--;
+            }
+
+            if (position == size && size < validFrom.length) {
+                validFrom[size] = time;
+                unscaled[size] = rateUnscaled;
+                scales[size] = rateScale;
+                return new Series(validFrom, unscaled, scales, size + 1);
+            }
+
+            int capacity = Math.max(4, size * 2);
+            long[] newValidFrom = new long[capacity];
+            long[] newUnscaled = new long[capacity];
+            byte[] newScales = new byte[capacity];
+
+            System.arraycopy(validFrom, 0, newValidFrom, 0, position);
+            System.arraycopy(unscaled, 0, newUnscaled, 0, position);
+            System.arraycopy(scales, 0, newScales, 0, position);
+
+            newValidFrom[position] = time;
+            newUnscaled[position] = rateUnscaled;
+            newScales[position] = rateScale;
+
+            System.arraycopy(validFrom, position, newValidFrom, position + 1, size - position);
+            System.arraycopy(unscaled, position, newUnscaled, position + 1, size - position);
+            System.arraycopy(scales, position, newScales, position + 1, size - position);
+
+            return new Series(newValidFrom, newUnscaled, newScales, size + 1);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long validFrom(int index) {
+            return validFrom[index];
+        }
+
+        public BigDecimal rate(int index) {
+            return FixedPoint.toBigDecimal(unscaled[index], scales[index]);
+        }
+
+        /**
+         * Returns the index of the rate in effect at {@code at}, the last one that took effect at or before it,
+         * or -1 when the pair had no rate yet.
+         */
+        public int indexAt(long at) {
+            int low = 0;
+            int high = size - 1;
+            int found = -1;
+
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+
+                if (validFrom[middle] <= at) {
+                    found = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return found;
+        }
+    }
+}
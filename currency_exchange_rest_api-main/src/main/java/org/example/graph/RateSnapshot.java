@@ -0,0 +1,230 @@
+package org.example.graph;
+
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.example.utils.FixedPoint;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * All currencies and exchange rates in a compact binary form, for shipping rate sets between environments
+ * and for starting with a warm {@link RateGraph} without querying the database.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * int    magic 'CXRS'
+ * short  version
+ * int    currency count, then per currency:
+ *          long id, 3 ASCII bytes code, short length + UTF-8 full name, short length + UTF-8 sign
+ * int    rate count, then per rate:
+ *          long id, short base currency index, short target currency index, long unscaled rate, byte scale
+ * </pre>
+ * Files are written and read through a memory-mapped {@link FileChannel}.
+ */
+public record RateSnapshot(List<Currency> currencies, List<ExchangeRate> exchangeRates) {
+
+    public static final String CONTENT_TYPE = "application/vnd.currency-exchange.rate-snapshot";
+
+    private static final int MAGIC = 0x43585253;
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES;
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+    private static final int RATE_SIZE = Long.BYTES + 2 * Short.BYTES + Long.BYTES + Byte.BYTES;
+
+    public RateGraph toGraph() {
+        return RateGraph.build(currencies, exchangeRates);
+    }
+
+    public static byte[] toByteArray(RateGraph graph) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(graph));
+        encode(graph, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Writes the graph to a temporary file next to {@code file} and moves it into place,
+     * so a crash never leaves a half-written snapshot behind.
+     */
+    public static void write(RateGraph graph, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        int size = encodedSize(graph);
+
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            encode(graph, buffer);
+            buffer.force();
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static RateSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException when the buffer does not hold a valid snapshot
+     */
+    public static RateSnapshot decode(ByteBuffer buffer) {
+        try {
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a rate snapshot");
+            }
+
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported rate snapshot version " + version);
+            }
+
+            int currencyCount = readCount(buffer, Long.BYTES + 3 + 2 * Short.BYTES);
+            List<Currency> currencies = new ArrayList<>(currencyCount);
+
+            for (int i = 0; i < currencyCount; i++) {
+                long id = buffer.getLong();
+                byte[] code = new byte[3];
+                buffer.get(code);
+
+                currencies.add(new Currency(
+                        id, new String(code, StandardCharsets.US_ASCII), readString(buffer), readString(buffer)
+                ));
+            }
+
+            int rateCount = readCount(buffer, RATE_SIZE);
+            List<ExchangeRate> exchangeRates = new ArrayList<>(rateCount);
+
+            for (int i = 0; i < rateCount; i++) {
+                long id = buffer.getLong();
+                int base = readIndex(buffer, currencyCount);
+                int target = readIndex(buffer, currencyCount);
+                long unscaled = buffer.getLong();
+                byte scale = buffer.get();
+
+                if (scale < 0 || scale > FixedPoint.MAX_SCALE) {
+                    throw new IllegalArgumentException("Rate scale " + scale + " is out of range");
+                }
+
+                exchangeRates.add(new ExchangeRate(
+                        id, currencies.get(base), currencies.get(target), FixedPoint.toBigDecimal(unscaled, scale)
+                ));
+            }
+
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("Unexpected data after the last rate");
+            }
+
+            return new RateSnapshot(currencies, exchangeRates);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Rate snapshot is truncated");
+        }
+    }
+
+    private static int encodedSize(RateGraph graph) {
+        int size = HEADER_SIZE + Integer.BYTES + Integer.BYTES;
+
+        for (int i = 0; i < graph.size(); i++) {
+            Currency currency = graph.currency(i);
+            size += Long.BYTES + 3
+                    + Short.BYTES + utf8Length(currency.getFullName())
+                    + Short.BYTES + utf8Length(currency.getSign());
+        }
+
+        for (int cell = 0; cell < graph.size() * graph.size(); cell++) {
+            if (graph.hasRate(cell)) {
+                size += RATE_SIZE;
+            }
+        }
+        return size;
+    }
+
+    private static void encode(RateGraph graph, ByteBuffer buffer) {
+        int size = graph.size();
+
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+
+        buffer.putInt(size);
+        for (int i = 0; i < size; i++) {
+            Currency currency = graph.currency(i);
+
+            buffer.putLong(currency.getId());
+            // graph currencies all have a key, so the code is three ASCII letters
+            buffer.put(currency.getCode().getBytes(StandardCharsets.US_ASCII));
+            writeString(buffer, currency.getFullName());
+            writeString(buffer, currency.getSign());
+        }
+
+        int countPosition = buffer.position();
+        int count = 0;
+        buffer.putInt(0);
+
+        for (int base = 0; base < size; base++) {
+            for (int target = 0; target < size; target++) {
+                int cell = base * size + target;
+
+                if (graph.hasRate(cell)) {
+                    buffer.putLong(graph.rateId(cell));
+                    buffer.putShort((short) base);
+                    buffer.putShort((short) target);
+                    buffer.putLong(graph.unscaledRate(cell));
+                    buffer.put(graph.rateScale(cell));
+                    count++;
+                }
+            }
+        }
+
+        buffer.putInt(countPosition, count);
+    }
+
+    private static int readCount(ByteBuffer buffer, int minimumEntrySize) {
+        int count = buffer.getInt();
+
+        if (count < 0 || (long) count * minimumEntrySize > buffer.remaining()) {
+            throw new IllegalArgumentException("Rate snapshot is truncated");
+        }
+        return count;
+    }
+
+    private static int readIndex(ByteBuffer buffer, int currencyCount) {
+        int index = Short.toUnsignedInt(buffer.getShort());
+
+        if (index >= currencyCount) {
+            throw new IllegalArgumentException("Currency index " + index + " is out of range");
+        }
+        return index;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException("'" + value + "' is too long for a rate snapshot");
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,218 @@
+package org.example.log;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes log events as JSON lines from a single background thread.
+ * <p>
+ * Logging threads put events into a bounded lock-free ring buffer and return; they never wait for output.
+ * When the buffer is full the event is dropped and counted, and the writer reports the number dropped.
+ * The output is flushed whenever the buffer runs empty.
+ */
+class AsyncAppender implements AutoCloseable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .disable(StreamWriteFeature.FLUSH_PASSED_TO_STREAM)
+            .build();
+
+    private final AtomicReferenceArray<LogEvent> slots;
+    // a slot can be written at position p when its sequence is p and read when it is p + 1
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Writer out;
+    private final Thread writer;
+
+    private long head;
+    private long reportedDropped;
+    private volatile boolean waiting;
+    private volatile boolean closed;
+
+    AsyncAppender(int capacity, Writer out) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.out = out;
+
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+
+        writer = new Thread(this::run, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    void append(LogEvent event) {
+        if (!offer(event)) {
+            dropped.incrementAndGet();
+        } else if (waiting) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Writes the events still buffered and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean offer(LogEvent event) {
+        long position = tail.get();
+
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, event);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // the writer has not freed this slot yet, the buffer is full
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    private LogEvent poll() {
+        int index = (int) head & mask;
+
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+
+        LogEvent event = slots.get(index);
+        slots.set(index, null);
+        sequences.set(index, head + mask + 1);
+        head++;
+
+        return event;
+    }
+
+    private void run() {
+        while (true) {
+            LogEvent event = poll();
+
+            if (event != null) {
+                write(event);
+                continue;
+            }
+
+            reportDropped();
+            flush();
+
+            if (closed) {
+                return;
+            }
+
+            waiting = true;
+            // recheck after announcing, an event published meanwhile has seen waiting and unparked this thread
+            if (sequences.get((int) head & mask) != head + 1 && !closed) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            waiting = false;
+        }
+    }
+
+    private void reportDropped() {
+        long total = dropped.get();
+
+        if (total != reportedDropped) {
+            write(new LogEvent(System.currentTimeMillis(), Level.WARN, AsyncAppender.class.getSimpleName(),
+                    writer.getName(), null, "Log buffer full, events dropped",
+                    new Object[]{"dropped", total - reportedDropped}, null));
+            reportedDropped = total;
+        }
+    }
+
+    private void write(LogEvent event) {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("time", Instant.ofEpochMilli(event.timestamp()).toString());
+            generator.writeStringField("level", event.level().name());
+            generator.writeStringField("logger", event.logger());
+            generator.writeStringField("thread", event.thread());
+            if (event.requestId() != null) {
+                generator.writeStringField("requestId", event.requestId());
+            }
+            generator.writeStringField("message", event.message());
+
+            Object[] fields = event.fields();
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                generator.writeFieldName(String.valueOf(fields[i]));
+                writeValue(generator, fields[i + 1]);
+            }
+
+            if (event.error() != null) {
+                StringWriter stackTrace = new StringWriter();
+                event.error().printStackTrace(new PrintWriter(stackTrace));
+
+                generator.writeStringField("error", String.valueOf(event.error()));
+                generator.writeStringField("stackTrace", stackTrace.toString());
+            }
+            generator.writeEndObject();
+            generator.flush();
+
+            out.write('\n');
+        } catch (IOException | RuntimeException ignored) {
+            // nowhere left to report a failing log output
+        }
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        switch (value) {
+            case null -> generator.writeNull();
+            case Boolean bool -> generator.writeBoolean(bool);
+            case Integer number -> generator.writeNumber(number);
+            case Long number -> generator.writeNumber(number);
+            case Double number -> generator.writeNumber(number);
+            case Number number -> generator.writeNumber(number.toString());
+            default -> generator.writeString(value.toString());
+        }
+    }
+
+    private void flush() {
+        try {
+            out.flush();
+        } catch (IOException ignored) {
+            // see write
+        }
+    }
+}
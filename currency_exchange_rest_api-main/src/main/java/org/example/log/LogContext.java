@@ -0,0 +1,27 @@
+package org.example.log;
+
+/**
+ * Request id of the current thread, attached to every event logged on it.
+ */
+public class LogContext {
+
+    private static final ThreadLocal<String> REQUEST_ID = new ThreadLocal<>();
+
+    public static String getRequestId() {
+        return REQUEST_ID.get();
+    }
+
+    /**
+     * Sets the request id of the current thread, {@code null} clears it. Returns the previous one for restoring.
+     */
+    public static String setRequestId(String requestId) {
+        String previous = REQUEST_ID.get();
+
+        if (requestId == null) {
+            REQUEST_ID.remove();
+        } else {
+            REQUEST_ID.set(requestId);
+        }
+        return previous;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.log;
+
+/**
+ * One log call, captured on the calling thread and formatted later by the {@link AsyncAppender}.
+ * {@code fields} holds alternating names and values.
+ */
+record LogEvent(
+        long timestamp,
+        Level level,
+        String logger,
+        String thread,
+        String requestId,
+        String message,
+        Object[] fields,
+        Throwable error
+) {}
@@ -0,0 +1,114 @@
+package org.example.log;
+
+/**
+ * Structured logger writing through {@link Logging}.
+ * <p>
+ * Messages are constant strings, variable data goes into key-value fields. The overloads take up to three fields
+ * without varargs, so a call below the configured level costs one volatile read and allocates nothing.
+ */
+public final class Logger {
+
+    private static final Object[] NO_FIELDS = {};
+
+    private final String name;
+
+    private Logger(String name) {
+        this.name = name;
+    }
+
+    public static Logger get(Class<?> type) {
+        return new Logger(type.getSimpleName());
+    }
+
+    public boolean isEnabled(Level level) {
+        return Logging.isEnabled(level);
+    }
+
+    public boolean isDebugEnabled() {
+        return Logging.isEnabled(Level.DEBUG);
+    }
+
+    public void debug(String message) {
+        if (Logging.isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, message, NO_FIELDS, null);
+        }
+    }
+
+    public void debug(String message, String key, Object value) {
+        if (Logging.isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, message, new Object[]{key, value}, null);
+        }
+    }
+
+    public void debug(String message, String key1, Object value1, String key2, Object value2) {
+        if (Logging.isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, message, new Object[]{key1, value1, key2, value2}, null);
+        }
+    }
+
+    public void debug(String message, String key1, Object value1, String key2, Object value2,
+                      String key3, Object value3) {
+        if (Logging.isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, message, new Object[]{key1, value1, key2, value2, key3, value3}, null);
+        }
+    }
+
+    public void info(String message) {
+        if (Logging.isEnabled(Level.INFO)) {
+            log(Level.INFO, message, NO_FIELDS, null);
+        }
+    }
+
+    public void info(String message, String key, Object value) {
+        if (Logging.isEnabled(Level.INFO)) {
+            log(Level.INFO, message, new Object[]{key, value}, null);
+        }
+    }
+
+    public void info(String message, String key1, Object value1, String key2, Object value2) {
+        if (Logging.isEnabled(Level.INFO)) {
+            log(Level.INFO, message, new Object[]{key1, value1, key2, value2}, null);
+        }
+    }
+
+    public void warn(String message) {
+        if (Logging.isEnabled(Level.WARN)) {
+            log(Level.WARN, message, NO_FIELDS, null);
+        }
+    }
+
+    public void warn(String message, String key, Object value) {
+        if (Logging.isEnabled(Level.WARN)) {
+            log(Level.WARN, message, new Object[]{key, value}, null);
+        }
+    }
+
+    public void warn(String message, Throwable error) {
+        if (Logging.isEnabled(Level.WARN)) {
+            log(Level.WARN, message, NO_FIELDS, error);
+        }
+    }
+
+    public void warn(String message, String key, Object value, Throwable error) {
+        if (Logging.isEnabled(Level.WARN)) {
+            log(Level.WARN, message, new Object[]{key, value}, error);
+        }
+    }
+
+    public void error(String message, Throwable error) {
+        if (Logging.isEnabled(Level.ERROR)) {
+            log(Level.ERROR, message, NO_FIELDS, error);
+        }
+    }
+
+    public void error(String message, String key, Object value, Throwable error) {
+        if (Logging.isEnabled(Level.ERROR)) {
+            log(Level.ERROR, message, new Object[]{key, value}, error);
+        }
+    }
+
+    private void log(Level level, String message, Object[] fields, Throwable error) {
+        Logging.append(new LogEvent(System.currentTimeMillis(), level, name, Thread.currentThread().getName(),
+                LogContext.getRequestId(), message, fields, error));
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.log;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Process-wide level threshold and appender behind every {@link Logger}.
+ * <p>
+ * Until {@link #configure} is called events at INFO and above go to standard output through a default buffer.
+ * Standard output is whatever {@link System#out} is when a batch of events is written, so redirecting it, as test
+ * runners and embedded containers do, redirects the log too.
+ */
+public final class Logging {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private static volatile Level threshold = Level.INFO;
+    private static volatile AsyncAppender appender;
+    private static long droppedBefore;
+
+    private Logging() {
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    public static Level getLevel() {
+        return threshold;
+    }
+
+    /**
+     * Sets the threshold and replaces the appender with one buffering {@code bufferSize} events,
+     * after writing out what the previous one still holds.
+     */
+    public static synchronized void configure(Level level, int bufferSize) {
+        if (appender != null) {
+            droppedBefore += appender.getDropped();
+            appender.close();
+        }
+        appender = newAppender(bufferSize);
+        threshold = level;
+    }
+
+    /**
+     * Events dropped because the buffer was full, since startup.
+     */
+    public static synchronized long getDropped() {
+        return droppedBefore + (appender == null ? 0 : appender.getDropped());
+    }
+
+    /**
+     * Writes out the buffered events and stops the writer. Later events are discarded.
+     */
+    public static synchronized void shutdown() {
+        threshold = Level.OFF;
+
+        if (appender != null) {
+            droppedBefore += appender.getDropped();
+            appender.close();
+            appender = null;
+        }
+    }
+
+    static void append(LogEvent event) {
+        AsyncAppender current = appender;
+
+        if (current == null) {
+            current = defaultAppender();
+            if (current == null) {
+                return;
+            }
+        }
+        current.append(event);
+    }
+
+    private static synchronized AsyncAppender defaultAppender() {
+        if (appender == null && threshold != Level.OFF) {
+            appender = newAppender(DEFAULT_BUFFER_SIZE);
+        }
+        return appender;
+    }
+
+    private static AsyncAppender newAppender(int bufferSize) {
+        return new AsyncAppender(bufferSize, new BufferedWriter(new OutputStreamWriter(
+                new StandardOutput(), StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE));
+    }
+
+    private static final class StandardOutput extends OutputStream {
+
+        @Override
+        public void write(int b) {
+            System.out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            System.out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            System.out.flush();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection pool metrics per Hikari pool: time spent waiting for a connection, time connections are held,
+ * acquisition timeouts and the active, idle, pending and maximum connection counts.
+ */
+public class HikariMetrics implements MetricsTrackerFactory {
+
+    private final MetricsRegistry registry;
+
+    public HikariMetrics(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        registry.gauge("hikari_connections_active", "Connections in use.",
+                poolStats::getActiveConnections, "pool", poolName);
+        registry.gauge("hikari_connections_idle", "Connections available in the pool.",
+                poolStats::getIdleConnections, "pool", poolName);
+        registry.gauge("hikari_connections_pending", "Threads waiting for a connection.",
+                poolStats::getPendingThreads, "pool", poolName);
+        registry.gauge("hikari_connections_max", "Maximum size of the pool.",
+                poolStats::getMaxConnections, "pool", poolName);
+
+        Histogram acquire = registry.histogram("hikari_connection_acquire_seconds",
+                "Time spent waiting for a pooled connection.", "pool", poolName);
+        Histogram usage = registry.histogram("hikari_connection_usage_seconds",
+                "Time a connection was held before being returned to the pool.", "pool", poolName);
+        LongAdder timeouts = registry.counter("hikari_connection_timeouts_total",
+                "Connection requests that timed out.", "pool", poolName);
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquire.record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usage.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram in nanoseconds with HDR-style log-linear buckets: every power of two is split into
+ * {@value #SUB_BUCKETS} equal buckets, so a recorded value is known within 12.5% from 1 ns up to about two minutes.
+ * Longer values land in the last bucket.
+ * <p>
+ * Recording is two atomic adds without locks. Counts are striped by thread, each stripe a separate row of one
+ * {@link AtomicLongArray}, so threads recording at the same time rarely touch the same cache line.
+ * Reads sum the stripes and are not atomic with respect to concurrent recording.
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 37;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private static final int SUM = BUCKETS;
+    // one sum slot after the buckets, rounded up to whole 64 byte lines
+    private static final int ROW_LENGTH = (BUCKETS + 1 + 7) & ~7;
+    private static final int STRIPES = Math.min(
+            Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1), 16
+    );
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * ROW_LENGTH);
+
+    public void record(long nanos) {
+        int row = ((int) Thread.currentThread().threadId() & STRIPES - 1) * ROW_LENGTH;
+
+        cells.getAndIncrement(row + index(nanos));
+        cells.getAndAdd(row + SUM, Math.max(nanos, 0));
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long sum = 0;
+
+        for (int row = 0; row < cells.length(); row += ROW_LENGTH) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += cells.get(row + i);
+            }
+            sum += cells.get(row + SUM);
+        }
+        return new Snapshot(counts, sum);
+    }
+
+    static int index(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+
+        int subBucket = (int) (nanos >>> exponent - SUB_BUCKET_BITS) & SUB_BUCKETS - 1;
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Smallest value that no longer falls into bucket {@code index}.
+     */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1;
+        }
+
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket + 1) << exponent - SUB_BUCKET_BITS;
+    }
+
+    public record Snapshot(long[] counts, long sumNanos) {
+
+        public long count() {
+            long count = 0;
+            for (long bucket : counts) {
+                count += bucket;
+            }
+            return count;
+        }
+
+        /**
+         * Number of values in buckets that lie entirely at or below {@code nanos}.
+         */
+        public long countAtOrBelow(long nanos) {
+            long count = 0;
+            for (int i = 0; i < counts.length && upperBound(i) - 1 <= nanos; i++) {
+                count += counts[i];
+            }
+            return count;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given quantile, 0 when nothing was recorded.
+         */
+        public long valueAtQuantile(double quantile) {
+            long total = count();
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBound(i) - 1;
+                }
+            }
+            return upperBound(counts.length - 1) - 1;
+        }
+    }
+}
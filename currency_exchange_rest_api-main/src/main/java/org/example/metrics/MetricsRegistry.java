@@ -0,0 +1,167 @@
+package org.example.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Named histograms, counters and gauges, written in the Prometheus text exposition format.
+ * <p>
+ * Metrics are looked up once and kept by the code that records them, the registry is only involved in registration
+ * and export. Labels are given as alternating names and values.
+ */
+public class MetricsRegistry {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    // bucket bounds exported for every histogram, in seconds. A histogram bucket only counts towards a bound it lies
+    // entirely below, so values just under a bound may be counted at the next one.
+    private static final double[] BOUNDS = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private static final String[] BOUND_LABELS = Arrays.stream(BOUNDS)
+            .mapToObj(bound -> BigDecimal.valueOf(bound).toPlainString())
+            .toArray(String[]::new);
+
+    private enum Type {
+        HISTOGRAM, COUNTER, GAUGE;
+
+        String exposition() {
+            return name().toLowerCase();
+        }
+    }
+
+    private record Family(String name, String help, Type type, ConcurrentMap<String, Object> series) {}
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) family(name, help, Type.HISTOGRAM).series()
+                .computeIfAbsent(formatLabels(labels), key -> new Histogram());
+    }
+
+    public LongAdder counter(String name, String help, String... labels) {
+        return (LongAdder) family(name, help, Type.COUNTER).series()
+                .computeIfAbsent(formatLabels(labels), key -> new LongAdder());
+    }
+
+    /**
+     * Registers a counter kept elsewhere, read at export time.
+     */
+    public void counter(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.COUNTER).series().put(formatLabels(labels), value);
+    }
+
+    /**
+     * Registers a value read at export time. A later registration with the same labels replaces it.
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).series().put(formatLabels(labels), value);
+    }
+
+    public void writeTo(Writer writer) throws IOException {
+        List<Family> snapshot;
+        synchronized (families) {
+            snapshot = new ArrayList<>(families.values());
+        }
+
+        StringBuilder out = new StringBuilder(4096);
+
+        for (Family family : snapshot) {
+            if (family.series().isEmpty()) {
+                continue;
+            }
+
+            out.append("# HELP ").append(family.name()).append(' ').append(family.help()).append('\n');
+            out.append("# TYPE ").append(family.name()).append(' ').append(family.type().exposition()).append('\n');
+
+            family.series().forEach((labels, metric) -> {
+                switch (metric) {
+                    case Histogram histogram -> appendHistogram(out, family.name(), labels, histogram.snapshot());
+                    case LongAdder counter -> appendSample(out, family.name(), labels, counter.sum());
+                    case DoubleSupplier gauge -> appendSample(out, family.name(), labels, gauge.getAsDouble());
+                    default -> throw new IllegalStateException("Unknown metric " + metric);
+                }
+            });
+
+            writer.append(out);
+            out.setLength(0);
+        }
+    }
+
+    private Family family(String name, String help, Type type) {
+        synchronized (families) {
+            Family family = families.computeIfAbsent(name, key -> new Family(name, help, type, new ConcurrentHashMap<>()));
+
+            if (family.type() != type) {
+                throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type().exposition());
+            }
+            return family;
+        }
+    }
+
+    private static void appendHistogram(StringBuilder out, String name, String labels, Histogram.Snapshot snapshot) {
+        String separator = labels.isEmpty() ? "" : labels + ",";
+
+        for (int i = 0; i < BOUNDS.length; i++) {
+            out.append(name).append("_bucket{").append(separator).append("le=\"").append(BOUND_LABELS[i]).append("\"} ")
+                    .append(snapshot.countAtOrBelow((long) (BOUNDS[i] * 1e9))).append('\n');
+        }
+
+        long count = snapshot.count();
+        out.append(name).append("_bucket{").append(separator).append("le=\"+Inf\"} ").append(count).append('\n');
+        appendSample(out, name + "_sum", labels, snapshot.sumNanos() / 1e9);
+        appendSample(out, name + "_count", labels, count);
+    }
+
+    private static void appendSample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+
+        if (value == (long) value) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static String formatLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name and value pairs");
+        }
+
+        StringBuilder formatted = new StringBuilder();
+
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                formatted.append(',');
+            }
+            formatted.append(labels[i]).append("=\"");
+
+            for (char c : labels[i + 1].toCharArray()) {
+                switch (c) {
+                    case '\\' -> formatted.append("\\\\");
+                    case '"' -> formatted.append("\\\"");
+                    case '\n' -> formatted.append("\\n");
+                    default -> formatted.append(c);
+                }
+            }
+            formatted.append('"');
+        }
+        return formatted.toString();
+    }
+}
@@ -0,0 +1,214 @@
+package org.example.migration;
+
+import org.example.exception.DatabaseOperationException;
+import org.example.log.Logger;
+import org.example.utils.FixedPoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Brings the database schema up to date at startup. Migrations are the scripts
+ * {@code /db/migration/V<version>__<name>.sql}, applied in order. Each runs in its own transaction together with
+ * raising {@code PRAGMA user_version} to its version, so a failed migration leaves nothing behind and an up-to-date
+ * database is not touched.
+ * <p>
+ * Databases set up with the scripts by hand have no version yet, it is inferred from their tables.
+ * <p>
+ * Data conversions SQL cannot do exactly run in Java after their migration's script, in the same transaction.
+ */
+public class SchemaMigrator {
+
+    private static final Logger log = Logger.get(SchemaMigrator.class);
+
+    @FunctionalInterface
+    private interface Step {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    private record Migration(int version, String name, Step after) {
+
+        Migration(int version, String name) {
+            this(version, name, connection -> {
+            });
+        }
+
+        String resource() {
+            return "/db/migration/V" + version + "__" + name + ".sql";
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "init_tables"),
+            new Migration(2, "insert_sample_data"),
+            new Migration(3, "fixed_point_rates", SchemaMigrator::convertRealRates),
+            new Migration(4, "rate_history"),
+            new Migration(5, "exchange_rate_pair_key")
+    );
+    private static final int SAMPLE_DATA_VERSION = 2;
+
+    private final boolean sampleData;
+
+    /**
+     * @param sampleData whether a new database gets the sample currencies and rates
+     */
+    public SchemaMigrator(boolean sampleData) {
+        this.sampleData = sampleData;
+    }
+
+    public static int latestVersion() {
+        return MIGRATIONS.getLast().version();
+    }
+
+    /**
+     * Applies the migrations {@code connection}'s database has not had yet and returns its version.
+     */
+    public int migrate(Connection connection) {
+        int version;
+
+        try {
+            version = currentVersion(connection);
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Failed to read the database schema version", e);
+        }
+
+        if (version > latestVersion()) {
+            throw new DatabaseOperationException(String.format(
+                    "Database schema version %d is newer than the latest known version %d", version, latestVersion()));
+        }
+
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() > version) {
+                apply(connection, migration);
+                version = migration.version();
+            }
+        }
+        return version;
+    }
+
+    private void apply(Connection connection, Migration migration) {
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try (Statement statement = connection.createStatement()) {
+                // another instance may have migrated since the version was read
+                if (currentVersion(connection) >= migration.version()) {
+                    connection.rollback();
+                    return;
+                }
+
+                if (migration.version() != SAMPLE_DATA_VERSION || sampleData) {
+                    statement.executeUpdate(read(migration.resource()));
+                }
+                migration.after().apply(connection);
+                statement.executeUpdate("PRAGMA user_version = " + migration.version());
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseOperationException(String.format(
+                    "Failed to migrate the database to version %d (%s)", migration.version(), migration.name()), e);
+        }
+
+        log.info("Migrated database schema", "version", migration.version(), "migration", migration.name());
+    }
+
+    /**
+     * Fills {@code rate_unscaled} and {@code rate_scale} from the REAL {@code rate} column and drops it. Each rate
+     * becomes the shortest decimal that reads back as the same double, so no stored digit is lost; a rate that
+     * needs more than {@link FixedPoint#MAX_SCALE} decimal places or {@link FixedPoint#MAX_PRECISION} digits fails
+     * the migration instead of being rounded.
+     */
+    static void convertRealRates(Connection connection) throws SQLException {
+        try (Statement select = connection.createStatement();
+             ResultSet resultSet = select.executeQuery("SELECT id, rate FROM Exchange_rates");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE Exchange_rates SET rate_unscaled = ?, rate_scale = ? WHERE id = ?")) {
+            while (resultSet.next()) {
+                long id = resultSet.getLong("id");
+                BigDecimal rate = FixedPoint.normalize(BigDecimal.valueOf(resultSet.getDouble("rate")));
+
+                if (!FixedPoint.fits(rate)) {
+                    throw new DatabaseOperationException(String.format(
+                            "Exchange rate %d (%s) cannot be stored exactly with at most %d decimal places",
+                            id, rate.toPlainString(), FixedPoint.MAX_SCALE));
+                }
+
+                update.setLong(1, FixedPoint.unscaled(rate));
+                update.setInt(2, rate.scale());
+                update.setLong(3, id);
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE Exchange_rates DROP COLUMN rate");
+        }
+    }
+
+    private static int currentVersion(Connection connection) throws SQLException {
+        int version;
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA user_version")) {
+            resultSet.next();
+            version = resultSet.getInt(1);
+        }
+
+        return version != 0 ? version : inferVersion(connection);
+    }
+
+    // the scripts were run by hand in order, so the newest table or column they created tells how far they got
+    static int inferVersion(Connection connection) throws SQLException {
+        if (exists(connection, "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?",
+                "Exchange_rate_history")) {
+            return 4;
+        }
+        if (exists(connection, "SELECT 1 FROM pragma_table_info('Exchange_rates') WHERE name = ?",
+                "rate_unscaled")) {
+            return 3;
+        }
+        if (exists(connection, "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?", "Currencies")) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT 1 FROM Currencies LIMIT 1")) {
+                return resultSet.next() ? 2 : 1;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean exists(Connection connection, String query, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, name);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    private static String read(String resource) {
+        try (InputStream script = SchemaMigrator.class.getResourceAsStream(resource)) {
+            if (script == null) {
+                throw new IllegalStateException(resource + " not found on the classpath");
+            }
+            return new String(script.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new DatabaseOperationException("Failed to read " + resource, e);
+        }
+    }
+}
@@ -1,18 +1,39 @@
 package org.example.service;
 
+import org.example.RateChangeBroadcaster;
+import org.example.ResponseCache;
 import org.example.dao.CurrencyDao;
 import org.example.dao.ExchangeRateDao;
-import org.example.dao.JdbcCurrencyDao;
-import org.example.dao.JdbcExchangeRateDao;
 import org.example.dto.ExchangeRateRequestDto;
 import org.example.entity.Currency;
 import org.example.entity.ExchangeRate;
+import org.example.exception.InvalidParameterException;
 import org.example.exception.NotFoundException;
+import org.example.graph.RateGraphEngine;
+import org.example.graph.RateSnapshot;
+import org.example.utils.ValidationUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class ExchangeRateService {
 
-    private final CurrencyDao currencyDao = new JdbcCurrencyDao();
-    private final ExchangeRateDao exchangeRateDao = new JdbcExchangeRateDao();
+    private final CurrencyDao currencyDao;
+    private final ExchangeRateDao exchangeRateDao;
+    private final RateGraphEngine rateGraphEngine;
+    private final ResponseCache responseCache;
+    private final RateChangeBroadcaster rateChangeBroadcaster;
+
+    public ExchangeRateService(CurrencyDao currencyDao, ExchangeRateDao exchangeRateDao, RateGraphEngine rateGraphEngine,
+                               ResponseCache responseCache, RateChangeBroadcaster rateChangeBroadcaster) {
+        this.currencyDao = currencyDao;
+        this.exchangeRateDao = exchangeRateDao;
+        this.rateGraphEngine = rateGraphEngine;
+        this.responseCache = responseCache;
+        this.rateChangeBroadcaster = rateChangeBroadcaster;
+    }
 
     public ExchangeRate save(ExchangeRateRequestDto exchangeRateRequestDto) {
         String baseCurrencyCode = exchangeRateRequestDto.baseCurrencyCode();
@@ -29,7 +50,12 @@ public class ExchangeRateService {
                 exchangeRateRequestDto.rate()
         );
 
-        return exchangeRateDao.save(exchangeRate);
+        ExchangeRate savedExchangeRate = exchangeRateDao.save(exchangeRate);
+        responseCache.invalidateExchangeRate(baseCurrency.getKey(), targetCurrency.getKey());
+        rateGraphEngine.onRateChanged(savedExchangeRate);
+        rateChangeBroadcaster.publish(savedExchangeRate);
+
+        return savedExchangeRate;
     }
 
     public ExchangeRate update(ExchangeRateRequestDto exchangeRateRequestDto) {
@@ -47,9 +73,119 @@ public class ExchangeRateService {
                 exchangeRateRequestDto.rate()
         );
 
-        return exchangeRateDao.update(exchangeRate)
+        ExchangeRate updatedExchangeRate = exchangeRateDao.update(exchangeRate)
                 .orElseThrow(() -> new NotFoundException(
                         "Failed to update exchange rate '" + baseCurrencyCode + "' - '" + targetCurrencyCode + "', no such exchange rate found")
                 );
+        responseCache.invalidateExchangeRate(baseCurrency.getKey(), targetCurrency.getKey());
+        rateGraphEngine.onRateChanged(updatedExchangeRate);
+        rateChangeBroadcaster.publish(updatedExchangeRate);
+
+        return updatedExchangeRate;
+    }
+
+    /**
+     * Starts a bulk import. Currencies are fetched once up front instead of twice per rate,
+     * and all rates are written together by {@link Import#commit()}.
+     */
+    public Import startImport() {
+        Map<String, Currency> currencies = new HashMap<>();
+        currencyDao.findAll().forEach(currency -> currencies.put(currency.getCode(), currency));
+
+        return new Import(currencies);
+    }
+
+    /**
+     * Adds the currencies of a snapshot that are missing here, then creates or overwrites its rates.
+     * Matching is by currency code since ids differ between environments; rates not in the snapshot are kept.
+     * The whole snapshot is validated before anything is written.
+     */
+    public List<ExchangeRate> importSnapshot(RateSnapshot snapshot) {
+        List<ExchangeRateRequestDto> exchangeRateRequestDtos = new ArrayList<>(snapshot.exchangeRates().size());
+
+        for (Currency currency : snapshot.currencies()) {
+            ValidationUtils.validateCurrencyCode(currency.getCode());
+        }
+
+        for (ExchangeRate exchangeRate : snapshot.exchangeRates()) {
+            ExchangeRateRequestDto exchangeRateRequestDto = new ExchangeRateRequestDto(
+                    exchangeRate.getBaseCurrency().getCode(),
+                    exchangeRate.getTargetCurrency().getCode(),
+                    exchangeRate.getRate()
+            );
+
+            ValidationUtils.validate(exchangeRateRequestDto);
+            exchangeRateRequestDtos.add(exchangeRateRequestDto);
+        }
+
+        Map<String, Currency> currencies = new HashMap<>();
+        currencyDao.findAll().forEach(currency -> currencies.put(currency.getCode(), currency));
+
+        for (Currency currency : snapshot.currencies()) {
+            if (!currencies.containsKey(currency.getCode())) {
+                currencies.put(currency.getCode(), currencyDao.save(
+                        new Currency(currency.getCode(), currency.getFullName(), currency.getSign())
+                ));
+            }
+        }
+
+        Import rateImport = new Import(currencies);
+        exchangeRateRequestDtos.forEach(rateImport::add);
+
+        return rateImport.commit();
+    }
+
+    public final class Import {
+
+        private final Map<String, Currency> currencies;
+        private final List<ExchangeRate> exchangeRates = new ArrayList<>();
+
+        private Import(Map<String, Currency> currencies) {
+            this.currencies = currencies;
+        }
+
+        /**
+         * Resolves the currencies of a validated request and queues the rate.
+         * The returned entity gets its id once the import is committed.
+         */
+        public ExchangeRate add(ExchangeRateRequestDto exchangeRateRequestDto) {
+            String baseCurrencyCode = exchangeRateRequestDto.baseCurrencyCode();
+            String targetCurrencyCode = exchangeRateRequestDto.targetCurrencyCode();
+
+            if (baseCurrencyCode.equals(targetCurrencyCode)) {
+                throw new InvalidParameterException("Base currency and target currency cannot be the same");
+            }
+
+            Currency baseCurrency = currencies.get(baseCurrencyCode);
+            if (baseCurrency == null) {
+                throw new NotFoundException("Currency with code '" + baseCurrencyCode + "' not found");
+            }
+
+            Currency targetCurrency = currencies.get(targetCurrencyCode);
+            if (targetCurrency == null) {
+                throw new NotFoundException("Currency with code '" + targetCurrencyCode + "' not found");
+            }
+
+            ExchangeRate exchangeRate = new ExchangeRate(baseCurrency, targetCurrency, exchangeRateRequestDto.rate());
+            exchangeRates.add(exchangeRate);
+
+            return exchangeRate;
+        }
+
+        public List<ExchangeRate> commit() {
+            exchangeRateDao.upsertAll(exchangeRates);
+
+            for (ExchangeRate exchangeRate : exchangeRates) {
+                responseCache.invalidateExchangeRate(
+                        exchangeRate.getBaseCurrency().getKey(), exchangeRate.getTargetCurrency().getKey()
+                );
+            }
+
+            if (!exchangeRates.isEmpty()) {
+                rateGraphEngine.onRatesChanged(exchangeRates);
+                rateChangeBroadcaster.publish(exchangeRates);
+            }
+            return exchangeRates;
+        }
     }
 }
@@ -1,22 +1,59 @@
 package org.example.service;
 
-import org.example.dao.ExchangeRateDao;
-import org.example.dao.JdbcExchangeRateDao;
 import org.example.dto.ExchangeRequestDto;
 import org.example.dto.ExchangeResponseDto;
-import org.example.entity.ExchangeRate;
+import org.example.entity.Currency;
 import org.example.exception.NotFoundException;
+import org.example.graph.Conversion;
+import org.example.graph.RateGraph;
+import org.example.graph.RateGraphEngine;
+import org.example.utils.FixedPoint;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import static java.math.MathContext.DECIMAL64;
 import static org.example.utils.MappingUtils.convertToDto;
 public class ExchangeService {
 
-    private final ExchangeRateDao exchangeRateDao = new JdbcExchangeRateDao();
+    private static final int AMOUNT_SCALE = 2;
+
+    private final RateGraphEngine rateGraphEngine;
+
+    public ExchangeService(RateGraphEngine rateGraphEngine) {
+        this.rateGraphEngine = rateGraphEngine;
+    }
 
     public ExchangeResponseDto exchange(ExchangeRequestDto exchangeRequestDto) {
-        ExchangeRate exchangeRate = findExchangeRate(exchangeRequestDto)
+        Optional<Conversion> conversion = rateGraphEngine.snapshot()
+                .findConversion(exchangeRequestDto.baseCurrencyCode(), exchangeRequestDto.targetCurrencyCode());
+
+        return exchange(conversion, exchangeRequestDto);
+    }
+
+    /**
+     * Converts with the rates that were in effect at {@code at} (epoch milliseconds),
+     * along the path the conversion takes today.
+     */
+    public ExchangeResponseDto exchangeAt(ExchangeRequestDto exchangeRequestDto, long at) {
+        Optional<Conversion> conversion = rateGraphEngine.snapshot()
+                .findConversion(exchangeRequestDto.baseCurrencyCode(), exchangeRequestDto.targetCurrencyCode())
+                .flatMap(current -> rateGraphEngine.history().findConversion(current, at));
+
+        return exchange(conversion, exchangeRequestDto);
+    }
+
+    /**
+     * Starts a batch that converts every request against the same snapshot
+     * and resolves each distinct currency pair only once.
+     */
+    public Batch batch() {
+        return new Batch(rateGraphEngine.snapshot());
+    }
+
+    private static ExchangeResponseDto exchange(Optional<Conversion> conversionOptional, ExchangeRequestDto exchangeRequestDto) {
+        Conversion conversion = conversionOptional
                 .orElseThrow(() -> new NotFoundException(
                         String.format(
                                 "Exchange rate '%s' - '%s' not found in the database",
@@ -26,83 +63,63 @@ public class ExchangeService {
                 ));
 
         BigDecimal amount = exchangeRequestDto.amount();
-        BigDecimal convertedAmount = amount.multiply(exchangeRate.getRate())
-                .setScale(2, RoundingMode.HALF_EVEN);
+        BigDecimal convertedAmount = convert(amount, conversion);
+
+        List<String> path = conversion.path().stream()
+                .map(Currency::getCode)
+                .toList();
 
         return new ExchangeResponseDto(
-                convertToDto(exchangeRate.getBaseCurrency()),
-                convertToDto(exchangeRate.getTargetCurrency()),
-                exchangeRate.getRate(),
+                convertToDto(conversion.baseCurrency()),
+                convertToDto(conversion.targetCurrency()),
+                conversion.rate(),
                 amount,
-                convertedAmount
+                convertedAmount,
+                path
         );
     }
 
-    private Optional<ExchangeRate> findExchangeRate(ExchangeRequestDto exchangeRequestDto) {
-        Optional<ExchangeRate> exchangeRate = findByDirectRate(exchangeRequestDto);
-
-        if (exchangeRate.isEmpty()) {
-            exchangeRate = findByIndirectRate(exchangeRequestDto);
-        }
-
-        if (exchangeRate.isEmpty()) {
-            exchangeRate = findByCrossRate(exchangeRequestDto);
+    /**
+     * Multiplies in scaled {@code long} arithmetic and only falls back to {@link BigDecimal}
+     * when the amount or the product does not fit.
+     */
+    private static BigDecimal convert(BigDecimal amount, Conversion conversion) {
+        if (conversion.rateScale() >= 0 && amount.scale() >= 0 && amount.precision() <= FixedPoint.MAX_PRECISION) {
+            try {
+                long convertedAmount = FixedPoint.multiply(
+                        FixedPoint.unscaled(amount), amount.scale(),
+                        conversion.unscaledRate(), conversion.rateScale(),
+                        AMOUNT_SCALE
+                );
+                return FixedPoint.toBigDecimal(convertedAmount, AMOUNT_SCALE);
+            } catch (ArithmeticException ignored) {
+                // the product overflowed, redo it in BigDecimal
+            }
         }
 
-        return exchangeRate;
+        return amount.multiply(conversion.rate())
+                .setScale(AMOUNT_SCALE, RoundingMode.HALF_EVEN);
     }
 
-    private Optional<ExchangeRate> findByDirectRate(ExchangeRequestDto exchangeRequestDto) {
-        return exchangeRateDao.findByCodes(
-                exchangeRequestDto.baseCurrencyCode(),
-                exchangeRequestDto.targetCurrencyCode()
-        );
-    }
+    public static final class Batch {
 
-    private Optional<ExchangeRate> findByIndirectRate(ExchangeRequestDto exchangeRequestDto) {
-        Optional<ExchangeRate> exchangeRateOptional = exchangeRateDao.findByCodes(
-                exchangeRequestDto.targetCurrencyCode(),
-                exchangeRequestDto.baseCurrencyCode()
-        );
+        private final RateGraph rateGraph;
+        private final Map<String, Optional<Conversion>> conversions = new HashMap<>();
 
-        if (exchangeRateOptional.isEmpty()) {
-            return Optional.empty();
+        private Batch(RateGraph rateGraph) {
+            this.rateGraph = rateGraph;
         }
 
-        ExchangeRate indirectExchangeRate = exchangeRateOptional.get();
-
-        BigDecimal rate = BigDecimal.ONE.divide(indirectExchangeRate.getRate(), DECIMAL64)
-                .setScale(6, RoundingMode.HALF_EVEN);
-
-        ExchangeRate directExchangeRate = new ExchangeRate(
-                indirectExchangeRate.getTargetCurrency(),
-                indirectExchangeRate.getBaseCurrency(),
-                rate
-        );
-
-        return Optional.of(directExchangeRate);
-    }
+        public ExchangeResponseDto exchange(ExchangeRequestDto exchangeRequestDto) {
+            String baseCurrencyCode = exchangeRequestDto.baseCurrencyCode();
+            String targetCurrencyCode = exchangeRequestDto.targetCurrencyCode();
 
-    private Optional<ExchangeRate> findByCrossRate(ExchangeRequestDto exchangeRequestDto) {
-        Optional<ExchangeRate> usdToBaseOptional = exchangeRateDao.findByCodes("USD", exchangeRequestDto.baseCurrencyCode());
-        Optional<ExchangeRate> usdToTargetOptional = exchangeRateDao.findByCodes("USD", exchangeRequestDto.targetCurrencyCode());
+            Optional<Conversion> conversion = conversions.computeIfAbsent(
+                    baseCurrencyCode + targetCurrencyCode,
+                    pair -> rateGraph.findConversion(baseCurrencyCode, targetCurrencyCode)
+            );
 
-        if (usdToBaseOptional.isEmpty() || usdToTargetOptional.isEmpty()) {
-            return Optional.empty();
+            return ExchangeService.exchange(conversion, exchangeRequestDto);
         }
-
-        ExchangeRate usdToBase = usdToBaseOptional.get();
-        ExchangeRate usdToTarget = usdToTargetOptional.get();
-
-        BigDecimal rate = usdToTarget.getRate().divide(usdToBase.getRate(), DECIMAL64)
-                .setScale(6, RoundingMode.HALF_EVEN);
-
-        ExchangeRate directExchangeRate = new ExchangeRate(
-                usdToBase.getTargetCurrency(),
-                usdToTarget.getTargetCurrency(),
-                rate
-        );
-
-        return Optional.of(directExchangeRate);
     }
 }
@@ -0,0 +1,54 @@
+package org.example.servlet;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.ApplicationContext;
+import org.example.RequestExecutor;
+
+import java.io.IOException;
+
+/**
+ * Servlet whose requests run on the {@link RequestExecutor} when it is enabled, and on the container thread otherwise.
+ * Subclasses must be declared {@code asyncSupported}. Also dispatches PATCH, which {@link HttpServlet} does not.
+ */
+public abstract class AsyncHttpServlet extends HttpServlet {
+
+    private RequestExecutor requestExecutor;
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        super.init(config);
+
+        requestExecutor = ApplicationContext.get(getServletContext()).getRequestExecutor();
+    }
+
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if (!requestExecutor.isEnabled() || !req.isAsyncSupported()) {
+            dispatch(req, resp);
+            return;
+        }
+
+        AsyncContext asyncContext = req.startAsync();
+        // bounded by the permit and connection timeouts instead
+        asyncContext.setTimeout(0);
+
+        requestExecutor.execute(asyncContext, () -> dispatch(req, resp));
+    }
+
+    protected void doPatch(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+    }
+
+    private void dispatch(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if (req.getMethod().equalsIgnoreCase("PATCH")) {
+            doPatch(req, resp);
+        } else {
+            super.service(req, resp);
+        }
+    }
+}
@@ -2,36 +2,71 @@ package org.example.servlet;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.ApplicationContext;
+import org.example.DataVersion;
 import org.example.dao.CurrencyDao;
-import org.example.dao.JdbcCurrencyDao;
 import org.example.dto.CurrencyRequestDto;
 import org.example.dto.CurrencyResponseDto;
 import org.example.entity.Currency;
+import org.example.log.Logger;
+import org.example.utils.HttpCacheUtils;
 import org.example.utils.MappingUtils;
+import org.example.utils.StreamingUtils;
 import org.example.utils.ValidationUtils;
+import org.example.utils.VersionedBytes;
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.io.Writer;
+import java.util.function.Consumer;
 
-@WebServlet("/currencies")
-public class CurrenciesServlet extends HttpServlet {
+@WebServlet(value = "/currencies", asyncSupported = true)
+public class CurrenciesServlet extends AsyncHttpServlet {
 
-    private final CurrencyDao currencyDao = new JdbcCurrencyDao();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Logger log = Logger.get(CurrenciesServlet.class);
+
+    private final VersionedBytes allCurrencies = new VersionedBytes();
+
+    private CurrencyDao currencyDao;
+    private DataVersion dataVersion;
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void init() {
+        ApplicationContext applicationContext = ApplicationContext.get(getServletContext());
+
+        currencyDao = applicationContext.getCurrencyDao();
+        dataVersion = applicationContext.getDataVersion();
+        objectMapper = applicationContext.getObjectMapper();
+    }
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        List<Currency> currencies = currencyDao.findAll();
+        long cursor = StreamingUtils.getCursor(req);
+        int limit = StreamingUtils.getLimit(req);
+        DataVersion.Stamp stamp = dataVersion.current();
 
-        List<CurrencyResponseDto> currenciesDto = currencies.stream()
-                .map(MappingUtils::convertToDto)
-                .collect(Collectors.toList());
+        if (HttpCacheUtils.notModified(req, resp, dataVersion.etag(stamp), stamp.lastModified())) {
+            return;
+        }
 
         resp.setContentType("application/json;charset=UTF-8");
-        objectMapper.writeValue(resp.getWriter(), currenciesDto);
+
+        if (cursor == 0 && limit < 0) {
+            // the full list is what pollers ask for, it is serialized once per data version
+            byte[] body = allCurrencies.get(stamp.version(), writer -> writeCurrencies(writer, cursor, limit));
+            resp.setContentLength(body.length);
+            resp.getOutputStream().write(body);
+            return;
+        }
+
+        writeCurrencies(resp.getWriter(), cursor, limit);
+    }
+
+    private void writeCurrencies(Writer writer, long cursor, int limit) throws IOException {
+        StreamingUtils.writeJsonArray(objectMapper, writer, (Consumer<CurrencyResponseDto> sink) ->
+                currencyDao.streamAll(cursor, limit, currency -> sink.accept(MappingUtils.convertToDto(currency)))
+        );
     }
 
     @Override
@@ -45,11 +80,7 @@ public class CurrenciesServlet extends HttpServlet {
         String normalizedName = name != null ? name.trim() : null;
         String normalizedSign = sign != null ? sign.trim() : null;
 
-        // Логируем для отладки
-        System.out.println("POST /currencies received:");
-        System.out.println("code = '" + normalizedCode + "'");
-        System.out.println("name = '" + normalizedName + "'");
-        System.out.println("sign = '" + normalizedSign + "'");
+        log.debug("Creating currency", "code", normalizedCode, "name", normalizedName, "sign", normalizedSign);
 
         // Создаем DTO
         CurrencyRequestDto currencyRequestDto = new CurrencyRequestDto(normalizedCode, normalizedName, normalizedSign);
@@ -2,34 +2,63 @@ package org.example.servlet;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.ApplicationContext;
+import org.example.DataVersion;
+import org.example.ResponseCache;
 import org.example.dao.CurrencyDao;
-import org.example.dao.JdbcCurrencyDao;
 import org.example.entity.Currency;
 import org.example.exception.NotFoundException;
+import org.example.utils.CurrencyCodes;
 import org.example.utils.ValidationUtils;
 
 import java.io.IOException;
 
 import static org.example.utils.MappingUtils.convertToDto;
 
-@WebServlet("/currency/*")
-public class CurrencyServlet extends HttpServlet {
+@WebServlet(value = "/currency/*", asyncSupported = true)
+public class CurrencyServlet extends AsyncHttpServlet {
 
-    private final CurrencyDao currencyDao = new JdbcCurrencyDao();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CurrencyDao currencyDao;
+    private DataVersion dataVersion;
+    private ResponseCache responseCache;
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void init() {
+        ApplicationContext applicationContext = ApplicationContext.get(getServletContext());
+
+        currencyDao = applicationContext.getCurrencyDao();
+        dataVersion = applicationContext.getDataVersion();
+        responseCache = applicationContext.getResponseCache();
+        objectMapper = applicationContext.getObjectMapper();
+    }
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        String code = req.getPathInfo().replaceFirst("/", "");
+        String code = ValidationUtils.validateCurrencyCode(req.getPathInfo().replaceFirst("/", ""));
 
-        ValidationUtils.validateCurrencyCode(code);
+        if (!responseCache.isEnabled()) {
+            objectMapper.writeValue(resp.getWriter(), convertToDto(findByCode(code)));
+            return;
+        }
 
-        Currency currency = currencyDao.findByCode(code)
-                .orElseThrow(() -> new NotFoundException("Currency with code '" + code + "' not found"));
+        int key = CurrencyCodes.key(code);
+        byte[] body = responseCache.getCurrency(key);
 
-        objectMapper.writeValue(resp.getWriter(), convertToDto(currency));
+        if (body == null) {
+            DataVersion.Stamp version = dataVersion.current();
+            body = objectMapper.writeValueAsBytes(convertToDto(findByCode(code)));
+            responseCache.putCurrency(key, version, body);
+        }
+
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+    }
+
+    private Currency findByCode(String code) {
+        return currencyDao.findByCode(code)
+                .orElseThrow(() -> new NotFoundException("Currency with code '" + code + "' not found"));
     }
 }
@@ -0,0 +1,123 @@
+package org.example.servlet;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.ApplicationContext;
+import org.example.ExceptionHandlingFilter;
+import org.example.dto.ErrorResponseDto;
+import org.example.dto.ExchangeBatchItemDto;
+import org.example.dto.ExchangeRequestDto;
+import org.example.exception.InvalidParameterException;
+import org.example.service.ExchangeService;
+import org.example.utils.ValidationUtils;
+
+import java.io.IOException;
+
+/**
+ * Converts many amounts in one request.
+ * <p>
+ * Accepts a JSON array or newline-delimited JSON of {@code {"from": "USD", "to": "EUR", "amount": 100}} items
+ * and answers in the same format, one result per item in input order. Items are read and written one at a time,
+ * so neither the request nor the response is held in memory. A failed item is reported in place as
+ * {@code {"code": ..., "message": ...}} with the status {@link ExceptionHandlingFilter} would have used.
+ */
+@WebServlet(value = "/exchange/batch", asyncSupported = true)
+public class ExchangeBatchServlet extends AsyncHttpServlet {
+
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private ExchangeService exchangeService;
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void init() {
+        ApplicationContext applicationContext = ApplicationContext.get(getServletContext());
+
+        exchangeService = applicationContext.getExchangeService();
+        objectMapper = applicationContext.getObjectMapper();
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        boolean ndjson = req.getContentType() != null && req.getContentType().startsWith(NDJSON_CONTENT_TYPE);
+
+        if (ndjson) {
+            resp.setContentType(NDJSON_CONTENT_TYPE + ";charset=UTF-8");
+        }
+
+        ExchangeService.Batch batch = exchangeService.batch();
+
+        try (MappingIterator<ExchangeBatchItemDto> items = objectMapper.readerFor(ExchangeBatchItemDto.class)
+                .readValues(req.getReader());
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(resp.getWriter())) {
+
+            if (ndjson) {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+            } else {
+                generator.writeStartArray();
+            }
+
+            int count = 0;
+
+            while (true) {
+                Object result;
+
+                try {
+                    if (!items.hasNextValue()) {
+                        break;
+                    }
+                    result = exchange(batch, items.nextValue());
+                } catch (JsonMappingException e) {
+                    // wrong field types, the iterator skips to the next item
+                    result = malformedItem(e);
+                } catch (JsonProcessingException e) {
+                    // broken syntax cannot be resynchronized, report it and end the batch
+                    objectMapper.writeValue(generator, malformedItem(e));
+                    break;
+                }
+
+                objectMapper.writeValue(generator, result);
+
+                if (++count % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    private Object exchange(ExchangeService.Batch batch, ExchangeBatchItemDto item) {
+        try {
+            if (item == null) {
+                throw new InvalidParameterException("Batch item must be an object");
+            }
+
+            ExchangeRequestDto exchangeRequestDto = new ExchangeRequestDto(
+                    item.from() != null ? item.from().trim().toUpperCase() : null,
+                    item.to() != null ? item.to().trim().toUpperCase() : null,
+                    item.amount()
+            );
+
+            ValidationUtils.validate(exchangeRequestDto);
+
+            return batch.exchange(exchangeRequestDto);
+        } catch (RuntimeException e) {
+            return new ErrorResponseDto(ExceptionHandlingFilter.resolveStatus(e), e.getMessage());
+        }
+    }
+
+    private static ErrorResponseDto malformedItem(JsonProcessingException e) {
+        return new ErrorResponseDto(HttpServletResponse.SC_BAD_REQUEST, "Malformed batch item: " + e.getOriginalMessage());
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.servlet;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.ApplicationContext;
+import org.example.graph.RateGraph;
+import org.example.graph.RateGraphEngine;
+
+import java.io.IOException;
+
+/**
+ * Writes the full matrix of effective rates: {@code rates[i][j]} converts {@code currencies[i]}
+ * into {@code currencies[j]}, {@code null} when there is no conversion path.
+ */
+@WebServlet(value = "/exchangeRates/matrix", asyncSupported = true)
+public class ExchangeRateMatrixServlet extends AsyncHttpServlet {
+
+    private RateGraphEngine rateGraphEngine;
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void init() {
+        ApplicationContext applicationContext = ApplicationContext.get(getServletContext());
+
+        rateGraphEngine = applicationContext.getRateGraphEngine();
+        objectMapper = applicationContext.getObjectMapper();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        RateGraph rateGraph = rateGraphEngine.snapshot();
+        int size = rateGraph.size();
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(resp.getWriter())) {
+            generator.writeStartObject();
+
+            generator.writeArrayFieldStart("currencies");
+            for (int i = 0; i < size; i++) {
+                generator.writeString(rateGraph.currency(i).getCode());
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("rates");
+            for (int base = 0; base < size; base++) {
+                generator.writeStartArray();
+                for (int target = 0; target < size; target++) {
+                    double rate = rateGraph.matrixRate(base, target);
+                    if (Double.isNaN(rate)) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(rate);
+                    }
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        }
+    }
+}
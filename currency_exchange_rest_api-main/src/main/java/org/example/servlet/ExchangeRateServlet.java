@@ -1,61 +1,131 @@
 package org.example.servlet;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.ApplicationContext;
+import org.example.DataVersion;
+import org.example.ResponseCache;
 import org.example.dao.ExchangeRateDao;
-import org.example.dao.JdbcExchangeRateDao;
+import org.example.dto.ExchangeRateHistoryDto;
 import org.example.dto.ExchangeRateRequestDto;
 import org.example.entity.ExchangeRate;
 import org.example.exception.InvalidParameterException;
 import org.example.exception.NotFoundException;
+import org.example.graph.RateGraphEngine;
+import org.example.graph.RateHistory;
 import org.example.service.ExchangeRateService;
+import org.example.utils.CurrencyCodes;
+import org.example.utils.StreamingUtils;
+import org.example.utils.TimeUtils;
 import org.example.utils.ValidationUtils;
 import java.io.IOException;
 import java.math.BigDecimal;
 import static org.example.utils.MappingUtils.convertToDto;
 
-@WebServlet("/exchangeRate/*")
-public class ExchangeRateServlet extends HttpServlet {
+@WebServlet(value = "/exchangeRate/*", asyncSupported = true)
+public class ExchangeRateServlet extends AsyncHttpServlet {
 
-    private final ExchangeRateDao exchangeRateDao = new JdbcExchangeRateDao();
-    private final ExchangeRateService exchangeRateService = new ExchangeRateService();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String HISTORY_SUFFIX = "/history";
+
+    private ExchangeRateDao exchangeRateDao;
+    private ExchangeRateService exchangeRateService;
+    private RateGraphEngine rateGraphEngine;
+    private DataVersion dataVersion;
+    private ResponseCache responseCache;
+    private ObjectMapper objectMapper;
 
     @Override
-    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        if (req.getMethod().equalsIgnoreCase("PATCH")) {
-            doPatch(req, resp);
-        } else {
-            super.service(req, resp);
-        }
+    public void init() {
+        ApplicationContext applicationContext = ApplicationContext.get(getServletContext());
+
+        exchangeRateDao = applicationContext.getExchangeRateDao();
+        exchangeRateService = applicationContext.getExchangeRateService();
+        rateGraphEngine = applicationContext.getRateGraphEngine();
+        dataVersion = applicationContext.getDataVersion();
+        responseCache = applicationContext.getResponseCache();
+        objectMapper = applicationContext.getObjectMapper();
     }
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String currencyCodes = req.getPathInfo().replaceFirst("/", "");
 
+        if (currencyCodes.endsWith(HISTORY_SUFFIX)) {
+            doGetHistory(currencyCodes.substring(0, currencyCodes.length() - HISTORY_SUFFIX.length()), req, resp);
+            return;
+        }
+
         if (currencyCodes.length() != 6) {
             throw new InvalidParameterException("Currency codes are either not provided or provided in an incorrect format");
         }
 
-        String baseCurrencyCode = currencyCodes.substring(0, 3);
-        String targetCurrencyCode = currencyCodes.substring(3);
+        String baseCurrencyCode = ValidationUtils.validateCurrencyCode(currencyCodes.substring(0, 3));
+        String targetCurrencyCode = ValidationUtils.validateCurrencyCode(currencyCodes.substring(3));
+
+        if (!responseCache.isEnabled()) {
+            objectMapper.writeValue(resp.getWriter(), convertToDto(findByCodes(baseCurrencyCode, targetCurrencyCode)));
+            return;
+        }
+
+        int baseKey = CurrencyCodes.key(baseCurrencyCode);
+        int targetKey = CurrencyCodes.key(targetCurrencyCode);
+        byte[] body = responseCache.getExchangeRate(baseKey, targetKey);
 
-        ValidationUtils.validateCurrencyCode(baseCurrencyCode);
-        ValidationUtils.validateCurrencyCode(targetCurrencyCode);
+        if (body == null) {
+            DataVersion.Stamp version = dataVersion.current();
+            body = objectMapper.writeValueAsBytes(convertToDto(findByCodes(baseCurrencyCode, targetCurrencyCode)));
+            responseCache.putExchangeRate(baseKey, targetKey, version, body);
+        }
+
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+    }
 
-        ExchangeRate exchangeRate = exchangeRateDao.findByCodes(baseCurrencyCode, targetCurrencyCode)
+    private ExchangeRate findByCodes(String baseCurrencyCode, String targetCurrencyCode) {
+        return exchangeRateDao.findByCodes(baseCurrencyCode, targetCurrencyCode)
                 .orElseThrow(() -> new NotFoundException(
                         "Exchange rate '" + baseCurrencyCode + "' - '" + targetCurrencyCode + "' not found")
                 );
+    }
 
-        objectMapper.writeValue(resp.getWriter(), convertToDto(exchangeRate));
+    /**
+     * Streams the rates of a pair between {@code from} and {@code to}, starting with the one
+     * already in effect at {@code from}.
+     */
+    private void doGetHistory(String currencyCodes, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (currencyCodes.length() != 6) {
+            throw new InvalidParameterException("Currency codes are either not provided or provided in an incorrect format");
+        }
+
+        String baseCurrencyCode = ValidationUtils.validateCurrencyCode(currencyCodes.substring(0, 3));
+        String targetCurrencyCode = ValidationUtils.validateCurrencyCode(currencyCodes.substring(3));
+
+        String fromParameter = req.getParameter("from");
+        String toParameter = req.getParameter("to");
+        long from = fromParameter == null || fromParameter.isBlank() ? Long.MIN_VALUE : TimeUtils.parseInstant(fromParameter, "from");
+        long to = toParameter == null || toParameter.isBlank() ? Long.MAX_VALUE : TimeUtils.parseInstant(toParameter, "to");
+
+        if (from > to) {
+            throw new InvalidParameterException("Parameter from must not be after to");
+        }
+
+        RateHistory.Series series = rateGraphEngine.history().find(baseCurrencyCode, targetCurrencyCode)
+                .orElseThrow(() -> new NotFoundException(
+                        "Exchange rate '" + baseCurrencyCode + "' - '" + targetCurrencyCode + "' has no history")
+                );
+
+        int first = Math.max(series.indexAt(from), 0);
+
+        StreamingUtils.<ExchangeRateHistoryDto>writeJsonArray(objectMapper, resp.getWriter(), sink -> {
+            for (int i = first; i < series.size() && series.validFrom(i) <= to; i++) {
+                sink.accept(new ExchangeRateHistoryDto(TimeUtils.format(series.validFrom(i)), series.rate(i)));
+            }
+        });
     }
 
+    @Override
     protected void doPatch(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String currencyCodes = req.getPathInfo().replaceFirst("/", "");
 
@@ -63,11 +133,8 @@ public class ExchangeRateServlet extends HttpServlet {
             throw new InvalidParameterException("Currency codes are either not provided or provided in an incorrect format");
         }
 
-        String baseCurrencyCode = currencyCodes.substring(0, 3);
-        String targetCurrencyCode = currencyCodes.substring(3);
-
-        ValidationUtils.validateCurrencyCode(baseCurrencyCode);
-        ValidationUtils.validateCurrencyCode(targetCurrencyCode);
+        String baseCurrencyCode = ValidationUtils.validateCurrencyCode(currencyCodes.substring(0, 3));
+        String targetCurrencyCode = ValidationUtils.validateCurrencyCode(currencyCodes.substring(3));
 
         String parameter = req.getReader().readLine();
 
@@ -83,6 +150,8 @@ public class ExchangeRateServlet extends HttpServlet {
 
         ExchangeRateRequestDto exchangeRateRequestDto = new ExchangeRateRequestDto(baseCurrencyCode, targetCurrencyCode, convertToNumber(rate));
 
+        ValidationUtils.validate(exchangeRateRequestDto);
+
         ExchangeRate exchangeRate = exchangeRateService.update(exchangeRateRequestDto);
 
         objectMapper.writeValue(resp.getWriter(), convertToDto(exchangeRate));
@@ -90,7 +159,7 @@ public class ExchangeRateServlet extends HttpServlet {
 
     private static BigDecimal convertToNumber(String rate) {
         try {
-            return BigDecimal.valueOf(Double.parseDouble(rate));
+            return new BigDecimal(rate.trim());
         }
         catch (NumberFormatException e) {
             throw new InvalidParameterException("Parameter rate must be a number");
@@ -0,0 +1,175 @@
+package org.example.servlet;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.ApplicationContext;
+import org.example.ExceptionHandlingFilter;
+import org.example.dto.ErrorResponseDto;
+import org.example.dto.ExchangeRateRequestDto;
+import org.example.entity.ExchangeRate;
+import org.example.exception.InvalidParameterException;
+import org.example.service.ExchangeRateService;
+import org.example.utils.ValidationUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.example.utils.MappingUtils.convertToDto;
+
+/**
+ * Creates or overwrites many exchange rates in one request.
+ * <p>
+ * Accepts CSV ({@code text/csv}, lines of {@code baseCurrencyCode,targetCurrencyCode,rate} with an optional header),
+ * a JSON array or newline-delimited JSON of {@code {"baseCurrencyCode": ..., "targetCurrencyCode": ..., "rate": ...}}.
+ * The body is parsed one row at a time and every valid row is written in a single transaction. The answer holds one
+ * result per row in input order, the stored exchange rate or {@code {"code": ..., "message": ...}} for a rejected row,
+ * as newline-delimited JSON for an NDJSON request and as a JSON array otherwise.
+ */
+@WebServlet(value = "/exchangeRates/import", asyncSupported = true)
+public class ExchangeRatesImportServlet extends AsyncHttpServlet {
+
+    private static final String CSV_CONTENT_TYPE = "text/csv";
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+    private static final String CSV_HEADER = "baseCurrencyCode";
+
+    private ExchangeRateService exchangeRateService;
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void init() {
+        ApplicationContext applicationContext = ApplicationContext.get(getServletContext());
+
+        exchangeRateService = applicationContext.getExchangeRateService();
+        objectMapper = applicationContext.getObjectMapper();
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String contentType = req.getContentType() != null ? req.getContentType() : "";
+        boolean ndjson = contentType.startsWith(NDJSON_CONTENT_TYPE);
+
+        ExchangeRateService.Import rateImport = exchangeRateService.startImport();
+        List<Object> results = contentType.startsWith(CSV_CONTENT_TYPE)
+                ? readCsv(req.getReader(), rateImport)
+                : readJson(req.getReader(), rateImport);
+
+        rateImport.commit();
+
+        if (ndjson) {
+            resp.setContentType(NDJSON_CONTENT_TYPE + ";charset=UTF-8");
+        }
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(resp.getWriter())) {
+            if (ndjson) {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+            } else {
+                generator.writeStartArray();
+            }
+
+            for (Object result : results) {
+                objectMapper.writeValue(generator, result instanceof ExchangeRate exchangeRate
+                        ? convertToDto(exchangeRate)
+                        : result);
+            }
+
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    private List<Object> readCsv(BufferedReader reader, ExchangeRateService.Import rateImport) throws IOException {
+        List<Object> results = new ArrayList<>();
+        int lineNumber = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+
+            if (line.isBlank() || (lineNumber == 1 && line.trim().regionMatches(true, 0, CSV_HEADER, 0, CSV_HEADER.length()))) {
+                continue;
+            }
+
+            String[] fields = line.split(",", -1);
+
+            if (fields.length != 3) {
+                results.add(new ErrorResponseDto(HttpServletResponse.SC_BAD_REQUEST,
+                        "Malformed line " + lineNumber + ": expected baseCurrencyCode,targetCurrencyCode,rate"));
+                continue;
+            }
+
+            results.add(importRow(rateImport, fields[0], fields[1], fields[2]));
+        }
+        return results;
+    }
+
+    private List<Object> readJson(BufferedReader reader, ExchangeRateService.Import rateImport) throws IOException {
+        List<Object> results = new ArrayList<>();
+
+        try (MappingIterator<ExchangeRateRequestDto> rows = objectMapper.readerFor(ExchangeRateRequestDto.class)
+                .readValues(reader)) {
+
+            while (true) {
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    results.add(importRow(rateImport, rows.nextValue()));
+                } catch (JsonMappingException e) {
+                    // wrong field types, the iterator skips to the next row
+                    results.add(malformedRow(e));
+                } catch (JsonProcessingException e) {
+                    // broken syntax cannot be resynchronized, report it and import what was read so far
+                    results.add(malformedRow(e));
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+
+    private static Object importRow(ExchangeRateService.Import rateImport, String baseCurrencyCode,
+                                    String targetCurrencyCode, String rate) {
+        BigDecimal value;
+
+        try {
+            value = rate.isBlank() ? null : new BigDecimal(rate.trim());
+        } catch (NumberFormatException e) {
+            return new ErrorResponseDto(HttpServletResponse.SC_BAD_REQUEST, "Parameter rate must be a number");
+        }
+
+        return importRow(rateImport, new ExchangeRateRequestDto(baseCurrencyCode, targetCurrencyCode, value));
+    }
+
+    private static Object importRow(ExchangeRateService.Import rateImport, ExchangeRateRequestDto row) {
+        try {
+            if (row == null) {
+                throw new InvalidParameterException("Import row must be an object");
+            }
+
+            ValidationUtils.validate(row);
+
+            return rateImport.add(new ExchangeRateRequestDto(
+                    ValidationUtils.validateCurrencyCode(row.baseCurrencyCode()),
+                    ValidationUtils.validateCurrencyCode(row.targetCurrencyCode()),
+                    row.rate()
+            ));
+        } catch (RuntimeException e) {
+            return new ErrorResponseDto(ExceptionHandlingFilter.resolveStatus(e), e.getMessage());
+        }
+    }
+
+    private static ErrorResponseDto malformedRow(JsonProcessingException e) {
+        return new ErrorResponseDto(HttpServletResponse.SC_BAD_REQUEST, "Malformed import row: " + e.getOriginalMessage());
+    }
+}
@@ -2,42 +2,73 @@ package org.example.servlet;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.ApplicationContext;
+import org.example.DataVersion;
 import org.example.dao.ExchangeRateDao;
-import org.example.dao.JdbcExchangeRateDao;
 import org.example.dto.ExchangeRateRequestDto;
 import org.example.dto.ExchangeRateResponseDto;
 import org.example.entity.ExchangeRate;
 import org.example.exception.InvalidParameterException;
 import org.example.service.ExchangeRateService;
-import org.example.utils.MappingUtils;
+import org.example.utils.HttpCacheUtils;
+import org.example.utils.StreamingUtils;
 import org.example.utils.ValidationUtils;
+import org.example.utils.VersionedBytes;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.math.BigDecimal;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 import static jakarta.servlet.http.HttpServletResponse.SC_CREATED;
 import static org.example.utils.MappingUtils.convertToDto;
 
-@WebServlet("/exchangeRates")
-public class ExchangeRatesServlet extends HttpServlet {
+@WebServlet(value = "/exchangeRates", asyncSupported = true)
+public class ExchangeRatesServlet extends AsyncHttpServlet {
 
-    private final ExchangeRateDao exchangeRateDao = new JdbcExchangeRateDao();
-    private final ExchangeRateService exchangeRateService = new ExchangeRateService();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final VersionedBytes allExchangeRates = new VersionedBytes();
+
+    private ExchangeRateDao exchangeRateDao;
+    private ExchangeRateService exchangeRateService;
+    private DataVersion dataVersion;
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void init() {
+        ApplicationContext applicationContext = ApplicationContext.get(getServletContext());
+
+        exchangeRateDao = applicationContext.getExchangeRateDao();
+        exchangeRateService = applicationContext.getExchangeRateService();
+        dataVersion = applicationContext.getDataVersion();
+        objectMapper = applicationContext.getObjectMapper();
+    }
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        List<ExchangeRate> exchangeRates = exchangeRateDao.findAll();
+        long cursor = StreamingUtils.getCursor(req);
+        int limit = StreamingUtils.getLimit(req);
+        DataVersion.Stamp stamp = dataVersion.current();
 
-        List<ExchangeRateResponseDto> exchangeRatesDto = exchangeRates.stream()
-                .map(MappingUtils::convertToDto)
-                .collect(Collectors.toList());
+        if (HttpCacheUtils.notModified(req, resp, dataVersion.etag(stamp), stamp.lastModified())) {
+            return;
+        }
+
+        if (cursor == 0 && limit < 0) {
+            // the full list is what pollers ask for, it is serialized once per data version
+            byte[] body = allExchangeRates.get(stamp.version(), writer -> writeExchangeRates(writer, cursor, limit));
+            resp.setContentLength(body.length);
+            resp.getOutputStream().write(body);
+            return;
+        }
+
+        writeExchangeRates(resp.getWriter(), cursor, limit);
+    }
 
-        objectMapper.writeValue(resp.getWriter(), exchangeRatesDto);
+    private void writeExchangeRates(Writer writer, long cursor, int limit) throws IOException {
+        StreamingUtils.writeJsonArray(objectMapper, writer, (Consumer<ExchangeRateResponseDto> sink) ->
+                exchangeRateDao.streamAll(cursor, limit, exchangeRate -> sink.accept(convertToDto(exchangeRate)))
+        );
     }
 
     @Override
@@ -66,7 +97,7 @@ public class ExchangeRatesServlet extends HttpServlet {
 
     private static BigDecimal convertToNumber(String rate) {
         try {
-            return BigDecimal.valueOf(Double.parseDouble(rate));
+            return new BigDecimal(rate.trim());
         }
         catch (NumberFormatException e) {
             throw new InvalidParameterException("Parameter rate must be a number");
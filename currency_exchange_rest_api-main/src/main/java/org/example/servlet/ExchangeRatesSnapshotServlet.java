@@ -0,0 +1,61 @@
+package org.example.servlet;
+
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.ApplicationContext;
+import org.example.exception.InvalidParameterException;
+import org.example.graph.RateGraphEngine;
+import org.example.graph.RateSnapshot;
+import org.example.service.ExchangeRateService;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_NO_CONTENT;
+
+/**
+ * Exports all currencies and exchange rates as a binary {@link RateSnapshot} and imports one from another environment.
+ */
+@WebServlet(value = "/exchangeRates/snapshot", asyncSupported = true)
+public class ExchangeRatesSnapshotServlet extends AsyncHttpServlet {
+
+    private RateGraphEngine rateGraphEngine;
+    private ExchangeRateService exchangeRateService;
+
+    @Override
+    public void init() {
+        ApplicationContext applicationContext = ApplicationContext.get(getServletContext());
+
+        rateGraphEngine = applicationContext.getRateGraphEngine();
+        exchangeRateService = applicationContext.getExchangeRateService();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        // encoded from the in-memory graph, no database query
+        byte[] snapshot = RateSnapshot.toByteArray(rateGraphEngine.snapshot());
+
+        resp.setContentType(RateSnapshot.CONTENT_TYPE);
+        resp.setContentLength(snapshot.length);
+        resp.getOutputStream().write(snapshot);
+    }
+
+    @Override
+    protected void doPut(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setCharacterEncoding("UTF-8");
+        resp.setContentType("application/json");
+
+        RateSnapshot snapshot;
+
+        try {
+            snapshot = RateSnapshot.decode(ByteBuffer.wrap(req.getInputStream().readAllBytes()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("Invalid rate snapshot: " + e.getMessage());
+        }
+
+        exchangeRateService.importSnapshot(snapshot);
+
+        resp.setStatus(SC_NO_CONTENT);
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.servlet;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.ApplicationContext;
+import org.example.RateChangeBroadcaster;
+
+import java.io.IOException;
+
+/**
+ * Server-Sent Events stream of exchange rate changes, one {@code rate} event per created, updated or imported rate.
+ * The request thread is released right after subscribing.
+ */
+@WebServlet(value = "/exchangeRates/stream", asyncSupported = true)
+public class ExchangeRatesStreamServlet extends HttpServlet {
+
+    private RateChangeBroadcaster rateChangeBroadcaster;
+
+    @Override
+    public void init() {
+        ApplicationContext applicationContext = ApplicationContext.get(getServletContext());
+
+        rateChangeBroadcaster = applicationContext.getRateChangeBroadcaster();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("text/event-stream");
+        resp.setHeader("Cache-Control", "no-cache");
+
+        AsyncContext asyncContext = req.startAsync();
+        asyncContext.setTimeout(0);
+
+        rateChangeBroadcaster.subscribe(asyncContext);
+    }
+}
@@ -2,28 +2,38 @@ package org.example.servlet;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.ApplicationContext;
 import org.example.dto.ExchangeRequestDto;
 import org.example.dto.ExchangeResponseDto;
 import org.example.service.ExchangeService;
+import org.example.utils.TimeUtils;
 import org.example.utils.ValidationUtils;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.security.InvalidParameterException;
 
-@WebServlet("/exchange")
-public class ExchangeServlet extends HttpServlet {
+@WebServlet(value = "/exchange", asyncSupported = true)
+public class ExchangeServlet extends AsyncHttpServlet {
 
-    private final ExchangeService exchangeService = new ExchangeService();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ExchangeService exchangeService;
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void init() {
+        ApplicationContext applicationContext = ApplicationContext.get(getServletContext());
+
+        exchangeService = applicationContext.getExchangeService();
+        objectMapper = applicationContext.getObjectMapper();
+    }
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String baseCurrencyCode = req.getParameter("from");
         String targetCurrencyCode = req.getParameter("to");
         String amountStr = req.getParameter("amount");
+        String at = req.getParameter("at");
 
         if (baseCurrencyCode == null || baseCurrencyCode.isBlank()) {
             throw new InvalidParameterException("Missing parameter - from");
@@ -49,7 +59,9 @@ public class ExchangeServlet extends HttpServlet {
 
         ValidationUtils.validate(exchangeRequestDto);
 
-        ExchangeResponseDto exchangeResponseDto = exchangeService.exchange(exchangeRequestDto);
+        ExchangeResponseDto exchangeResponseDto = at == null || at.isBlank()
+                ? exchangeService.exchange(exchangeRequestDto)
+                : exchangeService.exchangeAt(exchangeRequestDto, TimeUtils.parseInstant(at, "at"));
 
         objectMapper.writeValue(resp.getWriter(), exchangeResponseDto);
     }
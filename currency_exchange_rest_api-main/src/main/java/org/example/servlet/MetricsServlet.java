@@ -0,0 +1,33 @@
+package org.example.servlet;
+
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.ApplicationContext;
+import org.example.metrics.MetricsRegistry;
+
+import java.io.IOException;
+
+/**
+ * Request, DAO, connection pool and cache metrics in the Prometheus text format.
+ */
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+
+    private MetricsRegistry metricsRegistry;
+
+    @Override
+    public void init() {
+        ApplicationContext applicationContext = ApplicationContext.get(getServletContext());
+
+        metricsRegistry = applicationContext.getMetricsRegistry();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType(MetricsRegistry.CONTENT_TYPE);
+
+        metricsRegistry.writeTo(resp.getWriter());
+    }
+}
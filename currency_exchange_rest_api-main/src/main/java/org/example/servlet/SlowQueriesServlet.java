@@ -0,0 +1,46 @@
+package org.example.servlet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.ApplicationContext;
+import org.example.exception.NotFoundException;
+import org.example.trace.QueryTracer;
+
+import java.io.IOException;
+
+/**
+ * The most recent slow database statements with their phase timings, newest first. Only served when enabled with
+ * trace.slow-query-endpoint, and with bound parameters only when trace.slow-query-parameters is set.
+ */
+@WebServlet("/admin/slowQueries")
+public class SlowQueriesServlet extends HttpServlet {
+
+    private QueryTracer queryTracer;
+    private boolean enabled;
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void init() {
+        ApplicationContext applicationContext = ApplicationContext.get(getServletContext());
+
+        queryTracer = applicationContext.getQueryTracer();
+        enabled = applicationContext.isSlowQueryEndpoint();
+        objectMapper = applicationContext.getObjectMapper();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (!enabled) {
+            throw new NotFoundException("The slow query log is not enabled");
+        }
+        if (queryTracer == null) {
+            throw new NotFoundException("Query tracing is disabled");
+        }
+
+        resp.setContentType("application/json;charset=UTF-8");
+        objectMapper.writeValue(resp.getWriter(), queryTracer.getSlowQueries());
+    }
+}
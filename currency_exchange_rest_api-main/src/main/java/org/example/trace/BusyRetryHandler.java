@@ -0,0 +1,57 @@
+package org.example.trace;
+
+import org.sqlite.BusyHandler;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQLite's default busy handler, which waits with the same backoff up to the busy timeout before a statement fails
+ * with SQLITE_BUSY, plus a count of the retries. SQLite calls it on the thread running the statement.
+ */
+final class BusyRetryHandler extends BusyHandler {
+
+    private static final int[] DELAYS = {1, 2, 5, 10, 15, 20, 25, 25, 25, 50, 50, 100};
+    private static final int[] TOTALS = {0, 1, 3, 8, 18, 33, 53, 78, 103, 128, 178, 228};
+
+    private static final ThreadLocal<int[]> RETRIES = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final int timeoutMs;
+    private final LongAdder retries;
+
+    BusyRetryHandler(int timeoutMs, LongAdder retries) {
+        this.timeoutMs = timeoutMs;
+        this.retries = retries;
+    }
+
+    /**
+     * Retries so far on the current thread, statements take the difference around their execution.
+     */
+    static int retriesOnCurrentThread() {
+        return RETRIES.get()[0];
+    }
+
+    @Override
+    protected int callback(int previousCalls) {
+        int last = DELAYS.length - 1;
+        int delay = DELAYS[Math.min(previousCalls, last)];
+        int waited = previousCalls <= last ? TOTALS[previousCalls] : TOTALS[last] + delay * (previousCalls - last);
+
+        if (waited + delay > timeoutMs) {
+            delay = timeoutMs - waited;
+            if (delay <= 0) {
+                return 0;
+            }
+        }
+
+        RETRIES.get()[0]++;
+        retries.increment();
+
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        return 1;
+    }
+}
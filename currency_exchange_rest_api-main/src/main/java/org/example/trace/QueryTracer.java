@@ -0,0 +1,156 @@
+package org.example.trace;
+
+import org.example.dto.SlowQueryDto;
+import org.example.log.LogContext;
+import org.example.metrics.Histogram;
+import org.example.metrics.MetricsRegistry;
+import org.sqlite.BusyHandler;
+import org.sqlite.SQLiteConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times the JDBC work done on pooled connections: the wait for the connection and the prepare, execute and fetch
+ * phases of every statement, recorded per pool in {@code db_statement_seconds}. Transactions are traced as
+ * {@code BEGIN} and {@code COMMIT} statements, where SQLite takes and releases the write lock.
+ * <p>
+ * Executions that take at least the threshold, connection wait included, are kept in a bounded in-memory log, with
+ * their bound parameters only when parameter capture is enabled since those may be confidential.
+ * SQLite's busy timeout is replaced by a handler with the same backoff that also counts the retries on a locked
+ * database.
+ */
+public class QueryTracer {
+
+    record Pool(String name, Histogram prepare, Histogram execute, Histogram fetch) {}
+
+    record Execution(String sql, Object[] parameters, int parameterCount, int batchSize, boolean query,
+                     long waitNanos, long prepareNanos, long executeNanos, long fetchNanos, long rows, int busyRetries) {}
+
+    private final long thresholdNanos;
+    private final boolean captureParameters;
+    private final SlowQueryLog slowQueries;
+    private final BusyRetryHandler busyHandler;
+    private final LongAdder slowQueryCount;
+    private final MetricsRegistry metricsRegistry;
+    private final ConcurrentMap<String, Pool> pools = new ConcurrentHashMap<>();
+    // physical connections that already have the busy handler, weak so closed connections can be collected
+    private final Set<SQLiteConnection> handledConnections = Collections.newSetFromMap(new WeakHashMap<>());
+
+    public QueryTracer(long thresholdMs, int slowQueryLogSize, boolean captureParameters, int busyTimeoutMs,
+                       MetricsRegistry metricsRegistry) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.captureParameters = captureParameters;
+        this.slowQueries = new SlowQueryLog(slowQueryLogSize);
+        this.metricsRegistry = metricsRegistry;
+        this.busyHandler = new BusyRetryHandler(busyTimeoutMs, metricsRegistry.counter("db_busy_retries_total",
+                "Retries on a database locked by another connection (SQLITE_BUSY)."));
+        this.slowQueryCount = metricsRegistry.counter("db_slow_queries_total",
+                "Statement executions that took at least the slow query threshold.");
+    }
+
+    /**
+     * Returns {@code connection} traced, with {@code waitNanos} spent waiting for it added to its first statement.
+     */
+    public Connection trace(Connection connection, String pool, long waitNanos) throws SQLException {
+        installBusyHandler(connection);
+
+        return TracingConnection.wrap(connection, this, pools.computeIfAbsent(pool, this::createPool), waitNanos);
+    }
+
+    public long getThresholdMs() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    boolean isCapturingParameters() {
+        return captureParameters;
+    }
+
+    /**
+     * The captured slow queries, newest first.
+     */
+    public List<SlowQueryDto> getSlowQueries() {
+        return slowQueries.newestFirst();
+    }
+
+    void finish(Pool pool, Execution execution) {
+        pool.execute().record(execution.executeNanos());
+        if (execution.query()) {
+            pool.fetch().record(execution.fetchNanos());
+        }
+
+        long totalNanos = execution.waitNanos() + execution.prepareNanos() + execution.executeNanos() + execution.fetchNanos();
+
+        if (totalNanos >= thresholdNanos) {
+            slowQueryCount.increment();
+            slowQueries.add(toDto(pool, execution, totalNanos));
+        }
+    }
+
+    private Pool createPool(String name) {
+        String help = "Time spent in JDBC statements per phase.";
+
+        return new Pool(
+                name,
+                metricsRegistry.histogram("db_statement_seconds", help, "pool", name, "phase", "prepare"),
+                metricsRegistry.histogram("db_statement_seconds", help, "pool", name, "phase", "execute"),
+                metricsRegistry.histogram("db_statement_seconds", help, "pool", name, "phase", "fetch")
+        );
+    }
+
+    private void installBusyHandler(Connection connection) throws SQLException {
+        SQLiteConnection sqliteConnection = connection.unwrap(SQLiteConnection.class);
+
+        synchronized (handledConnections) {
+            if (handledConnections.add(sqliteConnection)) {
+                BusyHandler.setHandler(sqliteConnection, busyHandler);
+            }
+        }
+    }
+
+    private SlowQueryDto toDto(Pool pool, Execution execution, long totalNanos) {
+        List<Object> parameters = null;
+
+        if (captureParameters) {
+            parameters = new ArrayList<>(execution.parameterCount());
+
+            for (int i = 0; i < execution.parameterCount(); i++) {
+                Object value = execution.parameters()[i];
+                parameters.add(value == null || value instanceof Number || value instanceof String || value instanceof Boolean
+                        ? value
+                        : String.valueOf(value));
+            }
+        }
+
+        return new SlowQueryDto(
+                Instant.now().toString(),
+                pool.name(),
+                execution.sql(),
+                parameters,
+                execution.batchSize(),
+                execution.rows(),
+                execution.busyRetries(),
+                toMillis(execution.waitNanos()),
+                toMillis(execution.prepareNanos()),
+                toMillis(execution.executeNanos()),
+                toMillis(execution.fetchNanos()),
+                toMillis(totalNanos),
+                Thread.currentThread().getName(),
+                LogContext.getRequestId()
+        );
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
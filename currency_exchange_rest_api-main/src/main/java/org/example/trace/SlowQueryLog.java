@@ -0,0 +1,36 @@
+package org.example.trace;
+
+import org.example.dto.SlowQueryDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The last {@code capacity} slow queries, each new one replacing the oldest.
+ * Slow queries are rare, so a lock is enough.
+ */
+final class SlowQueryLog {
+
+    private final SlowQueryDto[] entries;
+    private long added;
+
+    SlowQueryLog(int capacity) {
+        this.entries = new SlowQueryDto[Math.max(capacity, 0)];
+    }
+
+    synchronized void add(SlowQueryDto query) {
+        if (entries.length > 0) {
+            entries[(int) (added++ % entries.length)] = query;
+        }
+    }
+
+    synchronized List<SlowQueryDto> newestFirst() {
+        int size = (int) Math.min(added, entries.length);
+        List<SlowQueryDto> queries = new ArrayList<>(size);
+
+        for (long i = added - 1; i >= added - size; i--) {
+            queries.add(entries[(int) (i % entries.length)]);
+        }
+        return queries;
+    }
+}
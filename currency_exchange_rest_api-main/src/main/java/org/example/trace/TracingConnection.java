@@ -0,0 +1,87 @@
+package org.example.trace;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+/**
+ * Connection proxy that traces its prepared statements and transaction boundaries.
+ */
+final class TracingConnection implements InvocationHandler {
+
+    private static final Object[] NO_PARAMETERS = {};
+
+    private final Connection target;
+    private final QueryTracer tracer;
+    private final QueryTracer.Pool pool;
+    private long waitNanos;
+
+    private TracingConnection(Connection target, QueryTracer tracer, QueryTracer.Pool pool, long waitNanos) {
+        this.target = target;
+        this.tracer = tracer;
+        this.pool = pool;
+        this.waitNanos = waitNanos;
+    }
+
+    static Connection wrap(Connection target, QueryTracer tracer, QueryTracer.Pool pool, long waitNanos) {
+        return (Connection) Proxy.newProxyInstance(TracingConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new TracingConnection(target, tracer, pool, waitNanos));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "prepareStatement" -> {
+                long start = System.nanoTime();
+                PreparedStatement statement = (PreparedStatement) delegate(target, method, args);
+                long prepareNanos = System.nanoTime() - start;
+
+                pool.prepare().record(prepareNanos);
+                return TracingStatement.wrap(statement, tracer, pool, (String) args[0], takeWaitNanos(), prepareNanos);
+            }
+            case "setAutoCommit" -> {
+                if (!(Boolean) args[0]) {
+                    return traced("BEGIN", method, args);
+                }
+            }
+            case "commit" -> {
+                return traced("COMMIT", method, args);
+            }
+            default -> {
+            }
+        }
+        return delegate(target, method, args);
+    }
+
+    static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * The wait for this connection, counted once, towards the first statement run on it.
+     */
+    private long takeWaitNanos() {
+        long nanos = waitNanos;
+        waitNanos = 0;
+        return nanos;
+    }
+
+    private Object traced(String sql, Method method, Object[] args) throws Throwable {
+        int retries = BusyRetryHandler.retriesOnCurrentThread();
+        long start = System.nanoTime();
+
+        try {
+            return delegate(target, method, args);
+        } finally {
+            tracer.finish(pool, new QueryTracer.Execution(sql, NO_PARAMETERS, 0, 0, false, takeWaitNanos(), 0,
+                    System.nanoTime() - start, 0, 0, BusyRetryHandler.retriesOnCurrentThread() - retries));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.trace;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+
+/**
+ * Result set proxy that adds the time spent stepping to the next row to its statement's fetch phase.
+ */
+final class TracingResultSet implements InvocationHandler {
+
+    private final ResultSet target;
+    private final TracingStatement statement;
+
+    private TracingResultSet(ResultSet target, TracingStatement statement) {
+        this.target = target;
+        this.statement = statement;
+    }
+
+    static ResultSet wrap(ResultSet target, TracingStatement statement) {
+        return (ResultSet) Proxy.newProxyInstance(TracingResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, new TracingResultSet(target, statement));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "next" -> {
+                long start = System.nanoTime();
+                boolean row = (Boolean) TracingConnection.delegate(target, method, args);
+
+                statement.fetched(System.nanoTime() - start, row);
+                return row;
+            }
+            case "close" -> {
+                try {
+                    return TracingConnection.delegate(target, method, args);
+                } finally {
+                    statement.finish();
+                }
+            }
+            default -> {
+                return TracingConnection.delegate(target, method, args);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.trace;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+/**
+ * Prepared statement proxy that remembers the bound parameters, when the tracer captures them, and times each
+ * execution, from the execute call until its result set or the statement is closed. The time spent between rows is
+ * not counted.
+ */
+final class TracingStatement implements InvocationHandler {
+
+    private final PreparedStatement target;
+    private final QueryTracer tracer;
+    private final QueryTracer.Pool pool;
+    private final String sql;
+
+    private Object[] parameters = new Object[4];
+    private int parameterCount;
+    private int batchSize;
+    // counted towards the first execution only
+    private long waitNanos;
+    private long prepareNanos;
+
+    private boolean executing;
+    private boolean query;
+    private long executeNanos;
+    private long fetchNanos;
+    private long rows;
+    private int busyRetries;
+
+    private TracingStatement(PreparedStatement target, QueryTracer tracer, QueryTracer.Pool pool, String sql,
+                             long waitNanos, long prepareNanos) {
+        this.target = target;
+        this.tracer = tracer;
+        this.pool = pool;
+        this.sql = sql;
+        this.waitNanos = waitNanos;
+        this.prepareNanos = prepareNanos;
+    }
+
+    static PreparedStatement wrap(PreparedStatement target, QueryTracer tracer, QueryTracer.Pool pool, String sql,
+                                  long waitNanos, long prepareNanos) {
+        return (PreparedStatement) Proxy.newProxyInstance(TracingStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new TracingStatement(target, tracer, pool, sql, waitNanos, prepareNanos));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+
+        switch (name) {
+            case "executeQuery" -> {
+                return TracingResultSet.wrap((ResultSet) execute(method, args, true), this);
+            }
+            case "executeUpdate", "executeLargeUpdate", "execute", "executeBatch", "executeLargeBatch" -> {
+                try {
+                    return execute(method, args, false);
+                } finally {
+                    finish();
+                }
+            }
+            case "close" -> finish();
+            case "clearParameters" -> parameterCount = 0;
+            case "addBatch" -> batchSize++;
+            case "clearBatch" -> batchSize = 0;
+            case "setNull" -> setParameter((Integer) args[0], null);
+            default -> {
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    setParameter(index, args[1]);
+                }
+            }
+        }
+        return TracingConnection.delegate(target, method, args);
+    }
+
+    void fetched(long nanos, boolean row) {
+        fetchNanos += nanos;
+        if (row) {
+            rows++;
+        }
+    }
+
+    void finish() {
+        if (!executing) {
+            return;
+        }
+        executing = false;
+
+        tracer.finish(pool, new QueryTracer.Execution(sql, parameters, parameterCount, batchSize, query,
+                waitNanos, prepareNanos, executeNanos, fetchNanos, rows, busyRetries));
+
+        waitNanos = 0;
+        prepareNanos = 0;
+        batchSize = 0;
+    }
+
+    private Object execute(Method method, Object[] args, boolean query) throws Throwable {
+        finish();
+
+        int retries = BusyRetryHandler.retriesOnCurrentThread();
+        long start = System.nanoTime();
+
+        try {
+            return TracingConnection.delegate(target, method, args);
+        } finally {
+            executeNanos = System.nanoTime() - start;
+            busyRetries = BusyRetryHandler.retriesOnCurrentThread() - retries;
+            fetchNanos = 0;
+            rows = 0;
+            this.query = query;
+            executing = true;
+        }
+    }
+
+    private void setParameter(int index, Object value) {
+        if (index < 1 || !tracer.isCapturingParameters()) {
+            return;
+        }
+        if (index > parameters.length) {
+            parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+        }
+
+        parameters[index - 1] = value;
+        parameterCount = Math.max(parameterCount, index);
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.utils;
+
+import java.util.Currency;
+
+/**
+ * ISO 4217 currency codes packed into 15-bit keys, five bits per letter: {@code (a << 10) | (b << 5) | c}
+ * with {@code 'A' = 0}. The set of valid codes is a 4 KB bitset built once when the class is loaded,
+ * so checking a code neither allocates nor locks.
+ */
+public class CurrencyCodes {
+
+    public static final int NO_KEY = -1;
+    public static final int KEY_SPACE = 1 << 15;
+
+    private static final long[] ISO_CODES = new long[KEY_SPACE / Long.SIZE];
+    private static final String[] CANONICAL_CODES = new String[KEY_SPACE];
+
+    static {
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            String code = currency.getCurrencyCode();
+            int key = key(code);
+
+            if (key != NO_KEY) {
+                ISO_CODES[key >>> 6] |= 1L << key;
+                CANONICAL_CODES[key] = code.intern();
+            }
+        }
+    }
+
+    /**
+     * Returns the key of exactly three upper-case ASCII letters, or {@link #NO_KEY}.
+     */
+    public static int key(String code) {
+        if (code == null || code.length() != 3) {
+            return NO_KEY;
+        }
+        return key(code.charAt(0), code.charAt(1), code.charAt(2));
+    }
+
+    public static int key(char first, char second, char third) {
+        if (!isLetter(first) || !isLetter(second) || !isLetter(third)) {
+            return NO_KEY;
+        }
+        return (first - 'A') << 10 | (second - 'A') << 5 | (third - 'A');
+    }
+
+    public static boolean isIsoCode(int key) {
+        return key >= 0 && key < KEY_SPACE && (ISO_CODES[key >>> 6] & 1L << key) != 0;
+    }
+
+    /**
+     * Returns the shared, interned instance of an ISO 4217 code, or {@code null} when the key is not one.
+     */
+    public static String canonical(int key) {
+        return isIsoCode(key) ? CANONICAL_CODES[key] : null;
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+}
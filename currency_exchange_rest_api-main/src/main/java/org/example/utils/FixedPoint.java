@@ -0,0 +1,96 @@
+package org.example.utils;
+
+import java.math.BigDecimal;
+
+/**
+ * Decimal arithmetic on scaled {@code long}s: a value is an unscaled {@code long} and a scale,
+ * {@code unscaled * 10^-scale}, the same model as {@link BigDecimal} without the allocation.
+ * <p>
+ * Every operation is exact and rounds once, {@code HALF_EVEN}, to the requested scale. Results that do not fit
+ * in a {@code long} throw {@link ArithmeticException}, callers fall back to {@link BigDecimal} then.
+ */
+public class FixedPoint {
+
+    public static final int MAX_SCALE = 18;
+    // any 18-digit number fits in a long
+    public static final int MAX_PRECISION = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Removes trailing zeros, keeping the scale at zero or above: {@code 1.500 -> 1.5}, {@code 1E+3 -> 1000}.
+     */
+    public static BigDecimal normalize(BigDecimal value) {
+        BigDecimal stripped = value.stripTrailingZeros();
+        return stripped.scale() < 0 ? stripped.setScale(0) : stripped;
+    }
+
+    /**
+     * Tells whether the value can be stored as a scaled {@code long}: at most {@link #MAX_PRECISION} significant
+     * digits and {@link #MAX_SCALE} decimal places.
+     */
+    public static boolean fits(BigDecimal value) {
+        BigDecimal normalized = normalize(value);
+        return normalized.scale() <= MAX_SCALE && normalized.precision() <= MAX_PRECISION;
+    }
+
+    public static long unscaled(BigDecimal value) {
+        return value.unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long unscaled, int scale) {
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * Returns {@code a * b} at {@code scale}.
+     */
+    public static long multiply(long a, int aScale, long b, int bScale, int scale) {
+        return rescale(Math.multiplyExact(a, b), aScale + bScale, scale);
+    }
+
+    /**
+     * Returns {@code dividend / divisor} at {@code scale}.
+     */
+    public static long divide(long dividend, int dividendScale, long divisor, int divisorScale, int scale) {
+        // dividend / divisor = (dividend * 10^(scale + divisorScale - dividendScale) / divisor) * 10^-scale
+        int shift = scale + divisorScale - dividendScale;
+
+        if (shift >= 0) {
+            return divideHalfEven(Math.multiplyExact(dividend, powerOfTen(shift)), divisor);
+        }
+        return divideHalfEven(dividend, Math.multiplyExact(divisor, powerOfTen(-shift)));
+    }
+
+    public static long rescale(long unscaled, int fromScale, int toScale) {
+        if (toScale >= fromScale) {
+            return Math.multiplyExact(unscaled, powerOfTen(toScale - fromScale));
+        }
+        return divideHalfEven(unscaled, powerOfTen(fromScale - toScale));
+    }
+
+    private static long divideHalfEven(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        long rest = Math.abs(divisor) - remainder;
+
+        if (remainder > rest || (remainder == rest && (quotient & 1) != 0)) {
+            return (dividend < 0) == (divisor < 0) ? quotient + 1 : quotient - 1;
+        }
+        return quotient;
+    }
+
+    private static long powerOfTen(int exponent) {
+        if (exponent > MAX_SCALE) {
+            throw new ArithmeticException("10^" + exponent + " does not fit in a long");
+        }
+        return POWERS_OF_TEN[exponent];
+    }
+}
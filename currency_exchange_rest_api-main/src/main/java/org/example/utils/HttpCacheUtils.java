@@ -0,0 +1,59 @@
+package org.example.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+public class HttpCacheUtils {
+
+    /**
+     * Sets {@code ETag} and {@code Last-Modified} and answers 304 when the client already has this version.
+     * {@code If-None-Match} takes precedence. {@code If-Modified-Since} only has second precision, so
+     * {@code lastModified} must move forward by at least a second with every change, as
+     * {@link org.example.DataVersion} does.
+     *
+     * @return {@code true} when the 304 has been sent and nothing else must be written
+     */
+    public static boolean notModified(HttpServletRequest req, HttpServletResponse resp, String etag, long lastModified) {
+        resp.setHeader("ETag", etag);
+        resp.setDateHeader("Last-Modified", lastModified);
+
+        String ifNoneMatch = req.getHeader("If-None-Match");
+
+        if (ifNoneMatch != null) {
+            return sendNotModified(resp, matches(ifNoneMatch, etag));
+        }
+
+        long ifModifiedSince;
+
+        try {
+            ifModifiedSince = req.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            // unparseable dates are ignored, as required for this header
+            return false;
+        }
+
+        return sendNotModified(resp, ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000);
+    }
+
+    private static boolean sendNotModified(HttpServletResponse resp, boolean notModified) {
+        if (notModified) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        }
+        return notModified;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
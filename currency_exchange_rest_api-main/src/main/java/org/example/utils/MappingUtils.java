@@ -9,17 +9,11 @@ import org.example.entity.ExchangeRate;
 public class MappingUtils {
 
     public static Currency convertToEntity(CurrencyRequestDto dto) {
-        Currency currency = new Currency();
-
         String code = dto.code() != null ? dto.code().trim().toUpperCase() : null;
         String name = dto.name() != null ? dto.name().trim() : null;
         String sign = dto.sign() != null ? dto.sign().trim() : null;
 
-        currency.setCode(code);
-        currency.setFullName(name);
-        currency.setSign(sign);
-
-        return currency;
+        return new Currency(code, name, sign);
     }
 
     public static CurrencyResponseDto convertToDto(Currency currency) {
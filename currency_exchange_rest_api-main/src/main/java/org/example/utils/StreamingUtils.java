@@ -0,0 +1,79 @@
+package org.example.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.exception.InvalidParameterException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+public class StreamingUtils {
+
+    public static long getCursor(HttpServletRequest req) {
+        String cursor = req.getParameter("cursor");
+
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+
+        try {
+            long value = Long.parseLong(cursor.trim());
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new InvalidParameterException("Parameter cursor must be a non-negative integer");
+    }
+
+    public static int getLimit(HttpServletRequest req) {
+        String limit = req.getParameter("limit");
+
+        if (limit == null || limit.isBlank()) {
+            return -1;
+        }
+
+        try {
+            int value = Integer.parseInt(limit.trim());
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new InvalidParameterException("Parameter limit must be a positive integer");
+    }
+
+    /**
+     * Writes a JSON array whose elements are produced one at a time by {@code source}.
+     * Nothing is collected, every element is serialized as soon as it is handed over.
+     * The generator is only flushed on success, so a failure before the first buffer fills
+     * leaves the response untouched for the error handler.
+     */
+    public static <T> void writeJsonArray(ObjectMapper objectMapper, Writer writer, Consumer<Consumer<T>> source)
+            throws IOException {
+        ObjectWriter elementWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+
+        generator.writeStartArray();
+
+        try {
+            source.accept(element -> {
+                try {
+                    elementWriter.writeValue(generator, element);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        generator.writeEndArray();
+        generator.close();
+    }
+}
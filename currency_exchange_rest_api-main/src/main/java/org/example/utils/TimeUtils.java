@@ -0,0 +1,33 @@
+package org.example.utils;
+
+import org.example.exception.InvalidParameterException;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+public class TimeUtils {
+
+    /**
+     * Parses an ISO-8601 instant such as {@code 2024-05-01T12:00:00Z} or epoch milliseconds.
+     */
+    public static long parseInstant(String value, String parameter) {
+        String trimmed = value.trim();
+
+        try {
+            return Long.parseLong(trimmed);
+        } catch (NumberFormatException ignored) {
+        }
+
+        try {
+            return Instant.parse(trimmed).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new InvalidParameterException(
+                    "Parameter " + parameter + " must be an ISO-8601 instant or epoch milliseconds"
+            );
+        }
+    }
+
+    public static String format(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).toString();
+    }
+}
@@ -6,14 +6,9 @@ import org.example.dto.ExchangeRequestDto;
 import org.example.exception.InvalidParameterException;
 
 import java.math.BigDecimal;
-import java.util.Currency;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 public class ValidationUtils {
 
-    private static Set<String> currencyCodes;
-
     public static void validate(CurrencyRequestDto currencyRequestDto) {
         String code = currencyRequestDto.code();
         String name = currencyRequestDto.name();
@@ -55,6 +50,13 @@ public class ValidationUtils {
             throw new InvalidParameterException("Invalid parameter - rate must be non-negative");
         }
 
+        if (!FixedPoint.fits(rate)) {
+            throw new InvalidParameterException(
+                    "Invalid parameter - rate must have at most " + FixedPoint.MAX_PRECISION
+                            + " significant digits and " + FixedPoint.MAX_SCALE + " decimal places"
+            );
+        }
+
         validateCurrencyCode(baseCurrencyCode);
         validateCurrencyCode(targetCurrencyCode);
     }
@@ -84,36 +86,46 @@ public class ValidationUtils {
         validateCurrencyCode(targetCurrencyCode);
     }
 
-    public static void validateCurrencyCode(String code) {
+    /**
+     * Checks the code ignoring surrounding whitespace and letter case, and returns its canonical interned form.
+     */
+    public static String validateCurrencyCode(String code) {
         if (code == null) {
             throw new InvalidParameterException("Currency code must not be null");
         }
 
-        String trimmedCode = code.trim().toUpperCase();
+        int start = 0;
+        int end = code.length();
 
-        // Для отладки — выводим реальный код, который проверяем
-        System.out.println("🔍 validateCurrencyCode: [" + trimmedCode + "]");
+        while (start < end && code.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && code.charAt(end - 1) <= ' ') {
+            end--;
+        }
 
-        if (trimmedCode.length() != 3) {
+        if (end - start != 3) {
             throw new InvalidParameterException("Currency code must contain exactly 3 letters");
         }
 
-        if (!trimmedCode.matches("[A-Z]{3}")) {
-            throw new InvalidParameterException("Currency code must contain only letters");
-        }
+        int key = CurrencyCodes.key(
+                toUpperCase(code.charAt(start)),
+                toUpperCase(code.charAt(start + 1)),
+                toUpperCase(code.charAt(start + 2))
+        );
 
-        // Загружаем допустимые коды валют один раз
-        if (currencyCodes == null) {
-            currencyCodes = Currency.getAvailableCurrencies()
-                    .stream()
-                    .map(Currency::getCurrencyCode)
-                    .collect(Collectors.toSet());
+        if (key == CurrencyCodes.NO_KEY) {
+            throw new InvalidParameterException("Currency code must contain only letters");
         }
 
-        if (!currencyCodes.contains(trimmedCode)) {
+        if (!CurrencyCodes.isIsoCode(key)) {
             throw new InvalidParameterException("Currency code must be in ISO 4217 format");
         }
-    }
-}
 
+        return CurrencyCodes.canonical(key);
+    }
 
+    private static char toUpperCase(char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+    }
+}
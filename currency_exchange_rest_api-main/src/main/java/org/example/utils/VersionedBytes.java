@@ -0,0 +1,57 @@
+package org.example.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The UTF-8 bytes of one response, kept for the {@link org.example.DataVersion} they were produced from.
+ * Requests for the same version reuse them; the first request for a newer version produces them again.
+ */
+public class VersionedBytes {
+
+    @FunctionalInterface
+    public interface Producer {
+        void writeTo(Writer writer) throws IOException;
+    }
+
+    private record Entry(long version, byte[] bytes) {}
+
+    private volatile Entry entry;
+
+    /**
+     * Returns the bytes for {@code version}, producing them at most once per version even under concurrent requests.
+     * The version must be read before the data the producer reads, so newer data is never cached as older.
+     */
+    public byte[] get(long version, Producer producer) throws IOException {
+        Entry current = entry;
+
+        if (current != null && current.version() == version) {
+            return current.bytes();
+        }
+
+        synchronized (this) {
+            current = entry;
+
+            if (current != null && current.version() >= version) {
+                // produced by a concurrent request, at worst from data newer than this version
+                return current.bytes();
+            }
+
+            byte[] bytes = produce(producer);
+            entry = new Entry(version, bytes);
+            return bytes;
+        }
+    }
+
+    private static byte[] produce(Producer producer) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8)) {
+            producer.writeTo(writer);
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,4 @@
+-- Rates are stored exactly as rate_unscaled * 10^-rate_scale instead of a binary REAL.
+-- SchemaMigrator fills the new columns from the REAL rates and then drops the rate column.
+ALTER TABLE Exchange_rates ADD COLUMN rate_unscaled INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE Exchange_rates ADD COLUMN rate_scale INTEGER NOT NULL DEFAULT 0 CHECK ( rate_scale BETWEEN 0 AND 18 );
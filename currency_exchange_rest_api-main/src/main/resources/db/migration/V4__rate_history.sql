@@ -0,0 +1,20 @@
+-- Append-only log of every rate a pair has had, valid_from in epoch milliseconds.
+CREATE TABLE IF NOT EXISTS Exchange_rate_history
+(
+    id                 INTEGER PRIMARY KEY AUTOINCREMENT,
+    base_currency_id   INTEGER NOT NULL,
+    target_currency_id INTEGER NOT NULL,
+    rate_unscaled      INTEGER NOT NULL,
+    rate_scale         INTEGER NOT NULL CHECK ( rate_scale BETWEEN 0 AND 18 ),
+    valid_from         INTEGER NOT NULL,
+    FOREIGN KEY (base_currency_id) REFERENCES Currencies (id),
+    FOREIGN KEY (target_currency_id) REFERENCES Currencies (id)
+);
+
+CREATE INDEX IF NOT EXISTS exchange_rate_history_pair_valid_from
+    ON Exchange_rate_history (base_currency_id, target_currency_id, valid_from);
+
+-- When these rates took effect is unknown, so they are treated as valid from the epoch.
+INSERT INTO Exchange_rate_history (base_currency_id, target_currency_id, rate_unscaled, rate_scale, valid_from)
+SELECT base_currency_id, target_currency_id, rate_unscaled, rate_scale, 0
+FROM Exchange_rates;
@@ -0,0 +1,46 @@
+-- Packs a currency code into 15 bits, 5 per letter with 'A' = 0, the same key as CurrencyCodes.key.
+-- Codes that are not three upper-case letters have no key.
+ALTER TABLE Currencies ADD COLUMN code_key INTEGER GENERATED ALWAYS AS (
+    CASE WHEN code GLOB '[A-Z][A-Z][A-Z]' THEN
+        ((unicode(substr(code, 1, 1)) - 65) << 10) | ((unicode(substr(code, 2, 1)) - 65) << 5) | (unicode(substr(code, 3, 1)) - 65)
+    END
+) VIRTUAL;
+
+-- (base code_key << 15) | target code_key, so a pair is found by its codes without looking up both currencies first.
+ALTER TABLE Exchange_rates ADD COLUMN pair_key INTEGER;
+
+UPDATE Exchange_rates
+SET pair_key = ((SELECT code_key FROM Currencies WHERE id = Exchange_rates.base_currency_id) << 15)
+             | (SELECT code_key FROM Currencies WHERE id = Exchange_rates.target_currency_id);
+
+-- Keys are distinct for distinct codes, so a pair has at most one row. Rates without a key (NULL) do not conflict.
+CREATE UNIQUE INDEX IF NOT EXISTS exchange_rates_pair_key ON Exchange_rates (pair_key);
+
+-- The application binds pair_key itself, these keep it right for every other writer.
+CREATE TRIGGER IF NOT EXISTS exchange_rates_pair_key_insert
+    AFTER INSERT ON Exchange_rates
+    WHEN NEW.pair_key IS NULL
+BEGIN
+    UPDATE Exchange_rates
+    SET pair_key = ((SELECT code_key FROM Currencies WHERE id = NEW.base_currency_id) << 15)
+                 | (SELECT code_key FROM Currencies WHERE id = NEW.target_currency_id)
+    WHERE id = NEW.id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS exchange_rates_pair_key_update
+    AFTER UPDATE OF base_currency_id, target_currency_id ON Exchange_rates
+BEGIN
+    UPDATE Exchange_rates
+    SET pair_key = ((SELECT code_key FROM Currencies WHERE id = NEW.base_currency_id) << 15)
+                 | (SELECT code_key FROM Currencies WHERE id = NEW.target_currency_id)
+    WHERE id = NEW.id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS currencies_code_pair_key
+    AFTER UPDATE OF code ON Currencies
+BEGIN
+    UPDATE Exchange_rates
+    SET pair_key = ((SELECT code_key FROM Currencies WHERE id = Exchange_rates.base_currency_id) << 15)
+                 | (SELECT code_key FROM Currencies WHERE id = Exchange_rates.target_currency_id)
+    WHERE base_currency_id = NEW.id OR target_currency_id = NEW.id;
+END;
@@ -0,0 +1,29 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataVersionTest {
+
+    @Test
+    void lastModifiedIsAWholeSecondThatEveryBumpMovesForward() {
+        DataVersion dataVersion = new DataVersion();
+        DataVersion.Stamp previous = dataVersion.current();
+        assertEquals(0, previous.lastModified() % 1000);
+        assertTrue(previous.lastModified() >= System.currentTimeMillis() - 1000);
+
+        // far more bumps than fit in the elapsed seconds, as in a burst of writes
+        for (int i = 0; i < 100; i++) {
+            dataVersion.bump();
+            DataVersion.Stamp stamp = dataVersion.current();
+
+            assertEquals(previous.version() + 1, stamp.version());
+            assertEquals(0, stamp.lastModified() % 1000);
+            // If-Modified-Since compares whole seconds, so the older one must not match the newer one
+            assertTrue(stamp.lastModified() / 1000 > previous.lastModified() / 1000);
+            previous = stamp;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.graph;
+
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConversionPathsTest {
+
+    private static final String[] CODES = {"USD", "EUR", "GBP", "JPY", "CHF", "SEK", "NOK", "AUD", "CAD", "CNY"};
+    private static final String[] RATES = {"0", "1", "0.5", "2", "0.92", "1.0834", "149.37", "0.0000614", "7.123456789"};
+
+    // withRate only relaxes or recomputes the pairs an edge can affect, it must end up where a full build does
+    @Test
+    void applyingRatesOneByOneMatchesAFreshBuild() {
+        for (long seed = 0; seed < 100; seed++) {
+            Random random = new Random(seed);
+            Map<String, Currency> currencies = new LinkedHashMap<>();
+            Map<String, ExchangeRate> rates = new LinkedHashMap<>();
+            RateGraph graph = RateGraph.empty();
+
+            for (int step = 0; step < 40; step++) {
+                // a growing pool, so currencies are also added to the graph along the way
+                int pool = Math.min(CODES.length, 2 + step / 4);
+                String baseCode = CODES[random.nextInt(pool)];
+                String targetCode = CODES[random.nextInt(pool)];
+
+                if (baseCode.equals(targetCode)) {
+                    continue;
+                }
+
+                Currency base = currencies.computeIfAbsent(baseCode, code -> currency(currencies.size() + 1, code));
+                Currency target = currencies.computeIfAbsent(targetCode, code -> currency(currencies.size() + 1, code));
+                ExchangeRate rate = new ExchangeRate(
+                        (long) rates.size() + 1, base, target, new BigDecimal(RATES[random.nextInt(RATES.length)])
+                );
+                ExchangeRate previous = rates.get(baseCode + targetCode);
+                if (previous != null) {
+                    rate.setId(previous.getId());
+                }
+                rates.put(baseCode + targetCode, rate);
+
+                graph = graph.withRate(rate);
+
+                assertSameConversions(
+                        RateGraph.build(new ArrayList<>(currencies.values()), new ArrayList<>(rates.values())),
+                        graph, "seed " + seed + ", step " + step + ", " + baseCode + targetCode + " = " + rate.getRate()
+                );
+            }
+        }
+    }
+
+    private static void assertSameConversions(RateGraph expected, RateGraph actual, String context) {
+        assertEquals(expected.size(), actual.size(), context);
+
+        for (int i = 0; i < expected.size(); i++) {
+            String baseCode = expected.currency(i).getCode();
+
+            for (int j = 0; j < expected.size(); j++) {
+                String targetCode = expected.currency(j).getCode();
+                String pair = context + ": " + baseCode + " -> " + targetCode;
+
+                assertEquals(expected.matrixRate(i, j),
+                        actual.matrixRate(actual.indexOf(baseCode), actual.indexOf(targetCode)), pair);
+
+                Optional<Conversion> expectedConversion = expected.findConversion(baseCode, targetCode);
+                Optional<Conversion> actualConversion = actual.findConversion(baseCode, targetCode);
+
+                assertEquals(expectedConversion.isPresent(), actualConversion.isPresent(), pair);
+                if (expectedConversion.isPresent()) {
+                    assertEquals(expectedConversion.get().rate(), actualConversion.get().rate(), pair);
+                    assertEquals(expectedConversion.get().unscaledRate(), actualConversion.get().unscaledRate(), pair);
+                    assertEquals(expectedConversion.get().rateScale(), actualConversion.get().rateScale(), pair);
+                    assertEquals(codes(expectedConversion.get().path()), codes(actualConversion.get().path()), pair);
+                }
+            }
+        }
+    }
+
+    private static List<String> codes(List<Currency> path) {
+        return path.stream().map(Currency::getCode).toList();
+    }
+
+    private static Currency currency(long id, String code) {
+        return new Currency(id, code, code, code);
+    }
+}
@@ -0,0 +1,264 @@
+package org.example.migration;
+
+import org.example.exception.DatabaseOperationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaMigratorTest {
+
+    // the shape of JdbcExchangeRateDao.findByCodes before and after the pair key migration
+    private static final String FIND_BY_CODES = """
+            SELECT er.id, bc.code, bc.full_name, bc.sign, tc.code, tc.full_name, tc.sign, er.rate_unscaled, er.rate_scale
+            FROM Exchange_rates er
+            JOIN Currencies bc ON er.base_currency_id = bc.id
+            JOIN Currencies tc ON er.target_currency_id = tc.id
+            WHERE bc.code = 'USD' AND tc.code = 'EUR'
+            """;
+    private static final String FIND_BY_PAIR_KEY = """
+            SELECT er.id, bc.code, bc.full_name, bc.sign, tc.code, tc.full_name, tc.sign, er.rate_unscaled, er.rate_scale
+            FROM Exchange_rates er
+            JOIN Currencies bc ON er.base_currency_id = bc.id
+            JOIN Currencies tc ON er.target_currency_id = tc.id
+            WHERE er.pair_key = 42
+            """;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void freshDatabaseLooksUpPairsByPairKey() throws SQLException {
+        try (Connection connection = open(dir.resolve("fresh.db"))) {
+            assertEquals(SchemaMigrator.latestVersion(), new SchemaMigrator(true).migrate(connection));
+
+            assertPairKeyPlan(plan(connection, FIND_BY_PAIR_KEY));
+        }
+    }
+
+    @Test
+    void legacyDatabaseIsMigratedFromItsInferredVersion() throws SQLException, IOException {
+        Path file = dir.resolve("legacy.db");
+        copyResource("/database.db", file);
+
+        try (Connection connection = open(file)) {
+            assertEquals(0, userVersion(connection));
+            assertEquals(4, SchemaMigrator.inferVersion(connection));
+
+            List<String> before = plan(connection, FIND_BY_CODES);
+            assertTrue(before.stream().anyMatch(step -> step.startsWith("SEARCH bc") && step.contains("(code=?)")));
+            assertTrue(before.stream().anyMatch(step -> step.startsWith("SEARCH tc") && step.contains("(code=?)")));
+
+            assertEquals(SchemaMigrator.latestVersion(), new SchemaMigrator(true).migrate(connection));
+            assertEquals(SchemaMigrator.latestVersion(), userVersion(connection));
+
+            assertPairKeyPlan(plan(connection, FIND_BY_PAIR_KEY));
+            // the data was there before the migration, the backfill keyed every rate
+            assertEquals(0, count(connection, "SELECT count(*) FROM Exchange_rates WHERE pair_key IS NULL"));
+            assertEquals(9, count(connection, "SELECT count(*) FROM Exchange_rates"));
+        }
+    }
+
+    @Test
+    void migratingTwiceChangesNothing() throws SQLException {
+        try (Connection connection = open(dir.resolve("twice.db"))) {
+            SchemaMigrator migrator = new SchemaMigrator(true);
+            migrator.migrate(connection);
+
+            List<String> schema = schema(connection);
+            long rates = count(connection, "SELECT count(*) FROM Exchange_rates");
+            long changes = count(connection, "SELECT total_changes()");
+
+            assertEquals(SchemaMigrator.latestVersion(), migrator.migrate(connection));
+            assertEquals(schema, schema(connection));
+            assertEquals(rates, count(connection, "SELECT count(*) FROM Exchange_rates"));
+            assertEquals(changes, count(connection, "SELECT total_changes()"));
+        }
+    }
+
+    @Test
+    void infersVersionOfHandRunScripts() throws SQLException {
+        try (Connection connection = open(dir.resolve("scripts.db"))) {
+            assertEquals(0, SchemaMigrator.inferVersion(connection));
+
+            runScript(connection, "/db/migration/V1__init_tables.sql");
+            assertEquals(1, SchemaMigrator.inferVersion(connection));
+
+            runScript(connection, "/db/migration/V2__insert_sample_data.sql");
+            assertEquals(2, SchemaMigrator.inferVersion(connection));
+
+            runScript(connection, "/db/migration/V3__fixed_point_rates.sql");
+            SchemaMigrator.convertRealRates(connection);
+            assertEquals(3, SchemaMigrator.inferVersion(connection));
+
+            runScript(connection, "/db/migration/V4__rate_history.sql");
+            assertEquals(4, SchemaMigrator.inferVersion(connection));
+
+            assertEquals(SchemaMigrator.latestVersion(), new SchemaMigrator(true).migrate(connection));
+            assertEquals(9, count(connection, "SELECT count(*) FROM Exchange_rate_history"));
+        }
+    }
+
+    @Test
+    void realRatesKeepEveryDigit() throws SQLException {
+        try (Connection connection = open(dir.resolve("digits.db"))) {
+            runScript(connection, "/db/migration/V1__init_tables.sql");
+            runScript(connection, "/db/migration/V2__insert_sample_data.sql");
+
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("UPDATE Exchange_rates SET rate = 0.0000614 WHERE id = 1");
+                statement.executeUpdate("UPDATE Exchange_rates SET rate = 1234.5 WHERE id = 2");
+                statement.executeUpdate("UPDATE Exchange_rates SET rate = 0.1 + 0.2 WHERE id = 3");
+            }
+
+            new SchemaMigrator(true).migrate(connection);
+
+            assertEquals(new BigDecimal("0.0000614"), rate(connection, 1));
+            assertEquals(new BigDecimal("1234.5"), rate(connection, 2));
+            assertEquals(new BigDecimal("0.30000000000000004"), rate(connection, 3));
+        }
+    }
+
+    @Test
+    void rateWithTooManyDecimalPlacesFailsTheMigration() throws SQLException {
+        try (Connection connection = open(dir.resolve("scale.db"))) {
+            runScript(connection, "/db/migration/V1__init_tables.sql");
+            runScript(connection, "/db/migration/V2__insert_sample_data.sql");
+
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("UPDATE Exchange_rates SET rate = 1.5E-20 WHERE id = 1");
+            }
+
+            assertThrows(DatabaseOperationException.class, () -> new SchemaMigrator(true).migrate(connection));
+            // the failed migration is rolled back, the REAL rate is still there to fix by hand
+            assertEquals(2, SchemaMigrator.inferVersion(connection));
+            assertEquals(1, count(connection, "SELECT count(*) FROM Exchange_rates WHERE rate = 1.5E-20"));
+        }
+    }
+
+    @Test
+    void migratesV1OnlyDatabaseWithoutSampleData() throws SQLException {
+        try (Connection connection = open(dir.resolve("v1.db"))) {
+            runScript(connection, "/db/migration/V1__init_tables.sql");
+
+            assertEquals(SchemaMigrator.latestVersion(), new SchemaMigrator(false).migrate(connection));
+            assertEquals(0, count(connection, "SELECT count(*) FROM Currencies"));
+            assertPairKeyPlan(plan(connection, FIND_BY_PAIR_KEY));
+        }
+    }
+
+    @Test
+    void triggersKeepPairKeyCurrent() throws SQLException {
+        try (Connection connection = open(dir.resolve("triggers.db"))) {
+            new SchemaMigrator(true).migrate(connection);
+
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("UPDATE Currencies SET code = 'XAU' WHERE code = 'EUR'");
+                statement.executeUpdate("""
+                        INSERT INTO Exchange_rates (base_currency_id, target_currency_id, rate_unscaled, rate_scale)
+                        VALUES (2, 3, 5, 0)
+                        """);
+            }
+
+            assertEquals(0, count(connection, """
+                    SELECT count(*)
+                    FROM Exchange_rates er
+                    JOIN Currencies bc ON er.base_currency_id = bc.id
+                    JOIN Currencies tc ON er.target_currency_id = tc.id
+                    WHERE er.pair_key IS NOT (bc.code_key << 15 | tc.code_key)
+                    """));
+        }
+    }
+
+    private static void assertPairKeyPlan(List<String> plan) {
+        assertTrue(plan.stream().anyMatch(step -> step.startsWith("SEARCH er")
+                        && step.contains("exchange_rates_pair_key (pair_key=?)")), plan.toString());
+        assertTrue(plan.stream().anyMatch(step -> step.startsWith("SEARCH bc USING INTEGER PRIMARY KEY")),
+                plan.toString());
+        assertTrue(plan.stream().anyMatch(step -> step.startsWith("SEARCH tc USING INTEGER PRIMARY KEY")),
+                plan.toString());
+        assertFalse(plan.stream().anyMatch(step -> step.contains("(code=?)")), plan.toString());
+        assertFalse(plan.stream().anyMatch(step -> step.startsWith("SCAN")), plan.toString());
+    }
+
+    private static BigDecimal rate(Connection connection, long id) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT rate_unscaled, rate_scale FROM Exchange_rates WHERE id = " + id)) {
+            resultSet.next();
+            return BigDecimal.valueOf(resultSet.getLong(1), resultSet.getInt(2));
+        }
+    }
+
+    private static Connection open(Path file) throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + file);
+    }
+
+    private static List<String> plan(Connection connection, String query) throws SQLException {
+        List<String> steps = new ArrayList<>();
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN QUERY PLAN " + query)) {
+            while (resultSet.next()) {
+                steps.add(resultSet.getString("detail"));
+            }
+        }
+        return steps;
+    }
+
+    private static List<String> schema(Connection connection) throws SQLException {
+        List<String> objects = new ArrayList<>();
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT type, name, sql FROM sqlite_master ORDER BY name")) {
+            while (resultSet.next()) {
+                objects.add(resultSet.getString(1) + " " + resultSet.getString(2) + " " + resultSet.getString(3));
+            }
+        }
+        return objects;
+    }
+
+    private static long count(Connection connection, String query) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(query)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static int userVersion(Connection connection) throws SQLException {
+        return (int) count(connection, "PRAGMA user_version");
+    }
+
+    private static void runScript(Connection connection, String resource) throws SQLException {
+        try (InputStream script = SchemaMigratorTest.class.getResourceAsStream(resource);
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate(new String(script.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void copyResource(String resource, Path file) throws IOException {
+        try (InputStream database = SchemaMigratorTest.class.getResourceAsStream(resource)) {
+            Files.copy(database, file);
+        }
+    }
+}